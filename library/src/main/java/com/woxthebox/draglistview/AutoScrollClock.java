@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * Runs the frames of one or more {@link AutoScroller}s. A board shares one clock between its own scroller and the
+ * scrollers of all columns, so there is a single frame callback and a single {@link Handler} no matter how many columns
+ * there are, and the board and a column that both scroll are moved in the same frame.
+ * <p/>
+ * Frames come from {@link Choreographer} from API 16 and from a delayed message otherwise, and are only requested while
+ * a scroller is scrolling.
+ */
+class AutoScrollClock {
+    // Frame delay when there is no Choreographer
+    private static final int FRAME_DELAY = 12;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    // Scrollers that want the next frame, and the ones the current frame is run for
+    private final ArrayList<AutoScroller> mScrollers = new ArrayList<>();
+    private final ArrayList<AutoScroller> mFrameScrollers = new ArrayList<>();
+    private boolean mFrameScheduled;
+    private Choreographer.FrameCallback mFrameCallback;
+    private final Runnable mFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            doFrame(System.nanoTime());
+        }
+    };
+
+    AutoScrollClock() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mFrameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    AutoScrollClock.this.doFrame(frameTimeNanos);
+                }
+            };
+        }
+    }
+
+    /**
+     * @return the handler to use for delayed work that doesn't have to run every frame.
+     */
+    Handler getHandler() {
+        return mHandler;
+    }
+
+    /**
+     * Runs the scroller on the next frame, once no matter how many times it is requested.
+     */
+    void requestFrame(AutoScroller scroller) {
+        if (!mScrollers.contains(scroller)) {
+            mScrollers.add(scroller);
+        }
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            if (mFrameCallback != null) {
+                Choreographer.getInstance().postFrameCallback(mFrameCallback);
+            } else {
+                mHandler.postDelayed(mFrameRunnable, FRAME_DELAY);
+            }
+        }
+    }
+
+    void cancelFrame(AutoScroller scroller) {
+        mScrollers.remove(scroller);
+        if (mScrollers.isEmpty() && mFrameScheduled) {
+            mFrameScheduled = false;
+            if (mFrameCallback != null) {
+                Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+            } else {
+                mHandler.removeCallbacks(mFrameRunnable);
+            }
+        }
+    }
+
+    private void doFrame(long frameTimeNanos) {
+        mFrameScheduled = false;
+        // Scrollers request the following frame while they run, so run the ones that wanted this frame from a copy
+        mFrameScrollers.addAll(mScrollers);
+        mScrollers.clear();
+        for (int i = 0; i < mFrameScrollers.size(); i++) {
+            mFrameScrollers.get(i).doFrame(frameTimeNanos);
+        }
+        mFrameScrollers.clear();
+    }
+}
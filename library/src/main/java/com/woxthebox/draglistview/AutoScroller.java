@@ -17,8 +17,18 @@
 package com.woxthebox.draglistview;
 
 import android.content.Context;
-import android.os.Handler;
+import android.os.SystemClock;
 
+/**
+ * Scrolls while a drag is held at an edge. The scroll is moved once per frame of an {@link AutoScrollClock}, which can
+ * be shared between scrollers, and the distance is taken from the time since the last frame so the speed is the same at
+ * any frame rate and when frames are dropped.
+ * <p/>
+ * The speed goes from the min speed at the start of the edge to the max speed at the end of it, see
+ * {@link #startAutoScroll(ScrollDirection, float)}, and is then multiplied by an acceleration that builds up the longer
+ * the scroll goes on in the same direction. Columns are scrolled one at a time, with a dwell time between them that gets
+ * shorter for every column, see {@link BoardView.ColumnScrollDwellCurve}.
+ */
 class AutoScroller {
     enum AutoScrollMode {
         POSITION, COLUMN
@@ -34,52 +44,175 @@ class AutoScroller {
         void onAutoScrollColumnBy(int columns);
     }
 
-    private static final int SCROLL_SPEED_DP = 8;
-    private static final int AUTO_SCROLL_UPDATE_DELAY = 12;
-    private static final int COLUMN_SCROLL_UPDATE_DELAY = 1000;
+    private static final float MIN_SCROLL_SPEED_DP_PER_SECOND = 300;
+    private static final float MAX_SCROLL_SPEED_DP_PER_SECOND = 1200;
+    private static final float MAX_ACCELERATION = 10;
+    private static final long ACCELERATION_RAMP_MILLIS = 3000;
+    // Longest time a single frame scrolls for, so a stall on the main thread doesn't make the list jump
+    private static final long MAX_FRAME_TIME_NANOS = 50 * 1000000L;
+    private static final long COLUMN_DWELL_TIME = 1000;
+    private static final long MIN_COLUMN_DWELL_TIME = 350;
+    private static final float COLUMN_DWELL_FACTOR = 0.6f;
+    // Starts at a second between columns and then shortens with every column, but leaves time for the column animation
+    private static final BoardView.ColumnScrollDwellCurve DEFAULT_DWELL_CURVE = new BoardView.ColumnScrollDwellCurve() {
+        @Override
+        public long getDwellTime(int hops) {
+            return Math.max(MIN_COLUMN_DWELL_TIME, (long) (COLUMN_DWELL_TIME * Math.pow(COLUMN_DWELL_FACTOR, hops - 1)));
+        }
+    };
 
-    private Handler mHandler = new Handler();
+    private AutoScrollClock mClock;
     private AutoScrollListener mListener;
     private boolean mIsAutoScrolling;
-    private int mScrollSpeed;
+    private float mDensity;
+    // Speeds in pixels per nanosecond
+    private float mMinScrollSpeed;
+    private float mMaxScrollSpeed;
+    private float mMaxAcceleration = MAX_ACCELERATION;
+    private long mAccelerationRampNanos = ACCELERATION_RAMP_MILLIS * 1000000L;
+    // How far into the edge the drag is, from 0 to 1
+    private float mIntensity;
+    private long mStartTimeNanos;
+    // Scroll handed over from another scroller, used if the next scroll goes the same way
+    private boolean mHandover;
+    private int mHandoverDirectionX;
+    private int mHandoverDirectionY;
+    private long mHandoverStartTimeNanos;
+    private long mHandoverTimeNanos;
     private long mLastScrollTime;
     private AutoScrollMode mAutoScrollMode = AutoScrollMode.POSITION;
+    // What the current auto scroll does, a position direction every frame or a number of columns every dwell time
+    private int mDirectionX;
+    private int mDirectionY;
+    private int mColumns;
+    private long mLastFrameTimeNanos;
+    // Parts of a pixel that are left from earlier frames
+    private float mRemainderX;
+    private float mRemainderY;
+    private BoardView.ColumnScrollDwellCurve mDwellCurve = DEFAULT_DWELL_CURVE;
+    // Number of columns scrolled since the drag reached the edge
+    private int mColumnHops;
+    private final Runnable mColumnRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mIsAutoScrolling && mColumns != 0) {
+                autoScrollColumnBy(mColumns);
+            }
+        }
+    };
 
     AutoScroller(Context context, AutoScrollListener listener) {
         mListener = listener;
-        mScrollSpeed = (int) (context.getResources().getDisplayMetrics().density * SCROLL_SPEED_DP);
+        mDensity = context.getResources().getDisplayMetrics().density;
+        setScrollSpeed(MIN_SCROLL_SPEED_DP_PER_SECOND, MAX_SCROLL_SPEED_DP_PER_SECOND);
+    }
+
+    /**
+     * Makes the scroller run on a clock that is shared with other scrollers. Without one the scroller creates its own
+     * clock the first time it scrolls.
+     */
+    void setClock(AutoScrollClock clock) {
+        stopAutoScroll();
+        mClock = clock;
+    }
+
+    private AutoScrollClock getClock() {
+        if (mClock == null) {
+            mClock = new AutoScrollClock();
+        }
+        return mClock;
     }
 
     void setAutoScrollMode(AutoScrollMode autoScrollMode) {
         mAutoScrollMode = autoScrollMode;
     }
 
+    /**
+     * @param minDpPerSecond Speed at the start of the edge.
+     * @param maxDpPerSecond Speed at the end of the edge.
+     */
+    void setScrollSpeed(float minDpPerSecond, float maxDpPerSecond) {
+        mMinScrollSpeed = mDensity * minDpPerSecond / 1e9f;
+        mMaxScrollSpeed = mDensity * Math.max(minDpPerSecond, maxDpPerSecond) / 1e9f;
+    }
+
+    /**
+     * @param maxAcceleration How many times faster the scroll gets at most, 1 to not accelerate.
+     * @param rampMillis      How long it takes to reach the max acceleration.
+     */
+    void setAcceleration(float maxAcceleration, long rampMillis) {
+        mMaxAcceleration = Math.max(1, maxAcceleration);
+        mAccelerationRampNanos = Math.max(0, rampMillis) * 1000000L;
+    }
+
+    void setColumnDwellCurve(BoardView.ColumnScrollDwellCurve dwellCurve) {
+        mDwellCurve = dwellCurve != null ? dwellCurve : DEFAULT_DWELL_CURVE;
+    }
+
+    /**
+     * @param depth    How far into the edge the drag is.
+     * @param edgeSize The size of the edge.
+     * @return the intensity to pass to {@link #startAutoScroll(ScrollDirection, float)}.
+     */
+    static float getIntensity(float depth, float edgeSize) {
+        return edgeSize > 0 ? Math.max(0, Math.min(depth / edgeSize, 1)) : 1;
+    }
+
     boolean isAutoScrolling() {
         return mIsAutoScrolling;
     }
 
+    /**
+     * Makes the next scroll start with the acceleration the other scroller has built up, if it goes in the same
+     * direction and starts right away.
+     */
+    void continueFrom(AutoScroller other) {
+        mHandover = other.mIsAutoScrolling && other.mColumns == 0;
+        mHandoverTimeNanos = System.nanoTime();
+        mHandoverDirectionX = other.mDirectionX;
+        mHandoverDirectionY = other.mDirectionY;
+        mHandoverStartTimeNanos = other.mStartTimeNanos;
+    }
+
     void stopAutoScroll() {
         mIsAutoScrolling = false;
+        mHandover = false;
+        mColumns = 0;
+        if (mClock != null) {
+            mClock.getHandler().removeCallbacks(mColumnRunnable);
+            mClock.cancelFrame(this);
+        }
     }
 
     void startAutoScroll(ScrollDirection direction) {
+        startAutoScroll(direction, 1);
+    }
+
+    /**
+     * Starts scrolling in the direction, or changes the speed if it is already scrolling that way. Columns are scrolled
+     * at the same pace no matter the intensity.
+     *
+     * @param intensity How far into the edge the drag is, from 0 at the start of the edge to 1 at the end of it.
+     */
+    void startAutoScroll(ScrollDirection direction, float intensity) {
+        mIntensity = Math.max(0, Math.min(intensity, 1));
         switch (direction) {
             case UP:
-                startAutoScrollPositionBy(0, mScrollSpeed);
+                startAutoScrollPositionBy(0, 1);
                 break;
             case DOWN:
-                startAutoScrollPositionBy(0, -mScrollSpeed);
+                startAutoScrollPositionBy(0, -1);
                 break;
             case LEFT:
                 if (mAutoScrollMode == AutoScrollMode.POSITION) {
-                    startAutoScrollPositionBy(mScrollSpeed, 0);
+                    startAutoScrollPositionBy(1, 0);
                 } else {
                     startAutoScrollColumnBy(1);
                 }
                 break;
             case RIGHT:
                 if (mAutoScrollMode == AutoScrollMode.POSITION) {
-                    startAutoScrollPositionBy(-mScrollSpeed, 0);
+                    startAutoScrollPositionBy(-1, 0);
                 } else {
                     startAutoScrollColumnBy(-1);
                 }
@@ -87,47 +220,105 @@ class AutoScroller {
         }
     }
 
-    private void startAutoScrollPositionBy(int dx, int dy) {
-        if (!mIsAutoScrolling) {
-            mIsAutoScrolling = true;
-            autoScrollPositionBy(dx, dy);
+    private void startAutoScrollPositionBy(int directionX, int directionY) {
+        if (mIsAutoScrolling && mColumns == 0 && directionX == mDirectionX && directionY == mDirectionY) {
+            // Keep the acceleration that has built up, only the intensity changes
+            return;
         }
-    }
-
-    private void autoScrollPositionBy(final int dx, final int dy) {
-        if (mIsAutoScrolling) {
-            mListener.onAutoScrollPositionBy(dx, dy);
-            mHandler.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    autoScrollPositionBy(dx, dy);
-                }
-            }, AUTO_SCROLL_UPDATE_DELAY);
+        mIsAutoScrolling = true;
+        mDirectionX = directionX;
+        mDirectionY = directionY;
+        mColumns = 0;
+        getClock().getHandler().removeCallbacks(mColumnRunnable);
+        mRemainderX = 0;
+        mRemainderY = 0;
+        mLastFrameTimeNanos = System.nanoTime();
+        mStartTimeNanos = mLastFrameTimeNanos;
+        boolean handoverValid = mLastFrameTimeNanos - mHandoverTimeNanos <= MAX_FRAME_TIME_NANOS;
+        if (mHandover && handoverValid && directionX == mHandoverDirectionX && directionY == mHandoverDirectionY) {
+            mStartTimeNanos = mHandoverStartTimeNanos;
         }
+        mHandover = false;
+        scheduleFrame();
     }
 
     private void startAutoScrollColumnBy(int columns) {
-        if (!mIsAutoScrolling) {
-            mIsAutoScrolling = true;
+        if (mIsAutoScrolling && mColumns == columns) {
+            return;
+        }
+        mIsAutoScrolling = true;
+        mDirectionX = 0;
+        mDirectionY = 0;
+        mColumns = columns;
+        mColumnHops = 0;
+        getClock().getHandler().removeCallbacks(mColumnRunnable);
+
+        // The first column is scrolled right away unless a column was just scrolled, in case the drag left the edge
+        // for a moment
+        long wait = mLastScrollTime + mDwellCurve.getDwellTime(1) - SystemClock.uptimeMillis();
+        if (wait > 0) {
+            getClock().getHandler().postDelayed(mColumnRunnable, wait);
+        } else {
             autoScrollColumnBy(columns);
         }
     }
 
-    private void autoScrollColumnBy(final int columns) {
+    /**
+     * @return true if columns are scrolled, nothing happens between the columns so the drag position has to be updated
+     * when the board scrolls.
+     */
+    boolean isAutoScrollingColumns() {
+        return mIsAutoScrolling && mColumns != 0;
+    }
+
+    private void scheduleFrame() {
+        getClock().requestFrame(this);
+    }
+
+    void doFrame(long frameTimeNanos) {
+        if (!mIsAutoScrolling || mColumns != 0) {
+            return;
+        }
+
+        // The frame time can be a bit before the scroll was started since it is the time of the display frame
+        long frameTime = Math.min(Math.max(frameTimeNanos - mLastFrameTimeNanos, 0), MAX_FRAME_TIME_NANOS);
+        mLastFrameTimeNanos = frameTimeNanos;
+        autoScrollPositionBy(frameTime, frameTimeNanos - mStartTimeNanos);
+
+        // The listener may have stopped the scroll
         if (mIsAutoScrolling) {
-            if (System.currentTimeMillis() - mLastScrollTime > COLUMN_SCROLL_UPDATE_DELAY) {
-                mListener.onAutoScrollColumnBy(columns);
-                mLastScrollTime = System.currentTimeMillis();
-            } else {
-                mListener.onAutoScrollColumnBy(0);
-            }
+            scheduleFrame();
+        }
+    }
 
-            mHandler.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    autoScrollColumnBy(columns);
-                }
-            }, AUTO_SCROLL_UPDATE_DELAY);
+    private void autoScrollPositionBy(long frameTime, long scrollTime) {
+        float speed = mMinScrollSpeed + (mMaxScrollSpeed - mMinScrollSpeed) * mIntensity;
+        if (mMaxAcceleration > 1) {
+            // Build up slowly so short scrolls stay precise and long ones get much faster
+            float ramp = mAccelerationRampNanos > 0 ? Math.min(Math.max(scrollTime, 0) / (float) mAccelerationRampNanos, 1) : 1;
+            speed *= 1 + (mMaxAcceleration - 1) * ramp * ramp;
+        }
+        float distance = speed * frameTime;
+        mRemainderX += mDirectionX * distance;
+        mRemainderY += mDirectionY * distance;
+        int dx = (int) mRemainderX;
+        int dy = (int) mRemainderY;
+        mRemainderX -= dx;
+        mRemainderY -= dy;
+        if (dx != 0 || dy != 0) {
+            mListener.onAutoScrollPositionBy(dx, dy);
+        }
+    }
+
+    private void autoScrollColumnBy(int columns) {
+        mLastScrollTime = SystemClock.uptimeMillis();
+        mColumnHops++;
+        mListener.onAutoScrollColumnBy(columns);
+
+        // The listener may have stopped the scroll or changed direction
+        if (mIsAutoScrolling && mColumns == columns) {
+            getClock().getHandler().removeCallbacks(mColumnRunnable);
+            getClock().getHandler().postDelayed(mColumnRunnable, Math.max(0, mDwellCurve.getDwellTime(mColumnHops)));
         }
     }
 }
@@ -78,6 +78,33 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         void onColumnDragEnded(int fromPosition, int toPosition);
     }
 
+    /**
+     * Listener for drags of selected items, see {@link DragItemAdapter#setItemSelected}.
+     */
+    public interface BoardGroupListener {
+        /**
+         * Called when a selection of items has been dropped, before {@link BoardListener#onItemDragEnded} for the
+         * dragged item. The items are dropped as a block so the new rows follow each other.
+         *
+         * @param fromRows The rows of the items when the drag started, in the order they had in the column.
+         * @param toRows   The new rows of the items, in the same order.
+         */
+        void onItemsDragEnded(int fromColumn, int[] fromRows, int toColumn, int[] toRows);
+    }
+
+    /**
+     * Decides how long a drag has to stay at the edge of the board before the next column is scrolled to, when
+     * snapping to columns while dragging.
+     */
+    public interface ColumnScrollDwellCurve {
+        /**
+         * @param hops The number of columns scrolled since the drag reached the edge, the time before the first column
+         *             is asked for with 1 and only used if a column was scrolled to just before.
+         * @return how long in ms to wait before scrolling to the next column.
+         */
+        long getDwellTime(int hops);
+    }
+
     public static abstract class BoardListenerAdapter implements BoardListener {
         @Override
         public void onItemDragStarted(int column, int row) {
@@ -119,16 +146,21 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
     private static final int SCROLL_ANIMATION_DURATION = 325;
     private Scroller mScroller;
     private AutoScroller mAutoScroller;
+    // Shared by the board and all columns so there is only one frame callback however many columns there are
+    private final AutoScrollClock mAutoScrollClock = new AutoScrollClock();
     private GestureDetector mGestureDetector;
     private FrameLayout mRootLayout;
     private LinearLayout mColumnLayout;
     private ArrayList<DragItemRecyclerView> mLists = new ArrayList<>();
     private ArrayList<View> mHeaders = new ArrayList<>();
+    // The adapters each open beginBatch() was called on, so columns added or removed meanwhile don't break the commit
+    private ArrayList<ArrayList<DragItemAdapter>> mBatchAdapters = new ArrayList<>();
     private ArrayList<View> mFooters = new ArrayList<>();
     private DragItemRecyclerView mCurrentRecyclerView;
     private DragItem mDragItem;
     private DragItem mDragColumn;
     private BoardListener mBoardListener;
+    private BoardGroupListener mBoardGroupListener;
     private BoardCallback mBoardCallback;
     private boolean mSnapToColumnWhenScrolling = true;
     private boolean mSnapToColumnWhenDragging = true;
@@ -145,10 +177,38 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
     private int mDragStartRow;
     private boolean mHasLaidOut;
     private boolean mDragEnabled = true;
+    private boolean mReorderOnlyOnDrop;
+    private float mReorderHysteresis;
+    private long mReorderVelocityLookahead;
+    private float mMinAutoScrollSpeed = -1;
+    private float mMaxAutoScrollSpeed;
+    private float mMaxAutoScrollAcceleration = -1;
+    private long mAutoScrollAccelerationRamp;
     private int mLastDragColumn = NO_POSITION;
     private int mLastDragRow = NO_POSITION;
     private int mDragColumnStartPosition;
     private SavedState mSavedState;
+    private boolean mDragFramePending;
+    private final Runnable mDragFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mDragFramePending = false;
+            // Position auto scroll updates the drag every frame, column auto scroll only when a column is scrolled
+            if (isDragging() && (!mAutoScroller.isAutoScrolling() || mAutoScroller.isAutoScrollingColumns())) {
+                updateScrollPosition();
+            }
+            if (isDragging()) {
+                updateTouchPrediction();
+            }
+        }
+    };
+    private final TouchPredictor mTouchPredictor = new TouchPredictor();
+    private final Runnable mTouchStoppedRunnable = new Runnable() {
+        @Override
+        public void run() {
+            getActiveDragItem().setPredictionOffset(0, 0);
+        }
+    };
 
     public BoardView(Context context) {
         super(context);
@@ -187,6 +247,7 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         mGestureDetector = new GestureDetector(getContext(), new GestureListener());
         mScroller = new Scroller(getContext(), new DecelerateInterpolator(1.1f));
         mAutoScroller = new AutoScroller(getContext(), this);
+        mAutoScroller.setClock(mAutoScrollClock);
         mAutoScroller.setAutoScrollMode(snapToColumnWhenDragging() ? AutoScroller.AutoScrollMode.COLUMN : AutoScroller.AutoScrollMode
                 .POSITION);
         mDragItem = new DragItem(getContext());
@@ -251,6 +312,28 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         return retValue || super.onTouchEvent(event);
     }
 
+    private void scheduleDragFrame() {
+        if (!mDragFramePending) {
+            mDragFramePending = true;
+            ViewCompat.postOnAnimation(this, mDragFrameRunnable);
+        }
+    }
+
+    private DragItem getActiveDragItem() {
+        return isDraggingColumn() ? mDragColumn : mDragItem;
+    }
+
+    private void updateTouchPrediction() {
+        if (!mTouchPredictor.isEnabled()) {
+            return;
+        }
+        mTouchPredictor.predict();
+        getActiveDragItem().setPredictionOffset(mTouchPredictor.getPredictedDx(), mTouchPredictor.getPredictedDy());
+        // Move the drag item back to the finger if it stops, no more touch events come then
+        removeCallbacks(mTouchStoppedRunnable);
+        postDelayed(mTouchStoppedRunnable, TouchPredictor.STALE_TIME);
+    }
+
     private boolean handleTouchEvent(MotionEvent event) {
         if (mLists.size() == 0) {
             return false;
@@ -261,12 +344,22 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         if (isDragging()) {
             switch (event.getAction()) {
                 case MotionEvent.ACTION_MOVE:
-                    if (!mAutoScroller.isAutoScrolling()) {
-                        updateScrollPosition();
+                    if (mTouchPredictor.isEnabled()) {
+                        mTouchPredictor.addMotionEvent(event);
                     }
+                    // Touch events can be delivered several times per frame, only handle the latest position once per frame
+                    scheduleDragFrame();
                     break;
                 case MotionEvent.ACTION_UP:
                 case MotionEvent.ACTION_CANCEL:
+                    if (mDragFramePending) {
+                        // Handle the last position before dropping
+                        removeCallbacks(mDragFrameRunnable);
+                        mDragFrameRunnable.run();
+                    }
+                    // The drop animation starts from the real position
+                    removeCallbacks(mTouchStoppedRunnable);
+                    getActiveDragItem().setPredictionOffset(0, 0);
                     mAutoScroller.stopAutoScroll();
                     if (isDraggingColumn()) {
                         endDragColumn();
@@ -281,6 +374,7 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
             }
             return true;
         } else {
+            mTouchPredictor.reset();
             if (snapToColumnWhenScrolling() && mGestureDetector.onTouchEvent(event)) {
                 // A page fling occurred, consume event
                 return true;
@@ -320,6 +414,10 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
                 } else {
                     mDragItem.setPosition(getRelativeViewTouchX((View) mCurrentRecyclerView.getParent()), getRelativeViewTouchY(mCurrentRecyclerView));
                 }
+                if (mAutoScroller.isAutoScrollingColumns()) {
+                    // Nothing else updates the drag between columns, move it to the column that scrolls in under it
+                    scheduleDragFrame();
+                }
             }
 
             ViewCompat.postInvalidateOnAnimation(this);
@@ -342,7 +440,7 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
     public void onAutoScrollColumnBy(int columns) {
         if (isDragging()) {
             int newColumn = mCurrentColumn + columns;
-            if (columns != 0 && newColumn >= 0 && newColumn < mLists.size()) {
+            if (newColumn >= 0 && newColumn < mLists.size()) {
                 scrollToColumn(newColumn, true);
             }
             updateScrollPosition();
@@ -374,10 +472,16 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
                 // Check if it is ok to drop the item in the new column first
                 int newPosition = currentList.getDragPositionForY(getRelativeViewTouchY(currentList));
                 if (mBoardCallback == null || mBoardCallback.canDropItemAtPosition(mDragStartColumn, mDragStartRow, newColumn, newPosition)) {
+                    // Keep scrolling vertically at the same speed in the new column when scrolling diagonally
+                    currentList.continueAutoScrollFrom(mCurrentRecyclerView);
                     Object item = mCurrentRecyclerView.removeDragItemAndEnd();
                     if (item != null) {
+                        // Only take the group once the item has left the old column, otherwise it stays there
+                        DragItemRecyclerView.DragGroup dragGroup = mCurrentRecyclerView.takeDragGroup();
                         mCurrentRecyclerView = currentList;
                         mCurrentRecyclerView.addDragItemAndStart(getRelativeViewTouchY(mCurrentRecyclerView), item, itemId);
+                        // The rest of the selection moves with the dragged item and is dropped in the new column
+                        mCurrentRecyclerView.setDragGroup(dragGroup);
                         mDragItem.setOffset(((View) mCurrentRecyclerView.getParent()).getLeft(), mCurrentRecyclerView.getTop());
 
                         if (mBoardListener != null) {
@@ -394,9 +498,10 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         boolean isPortrait = getResources().getConfiguration().orientation == Configuration.ORIENTATION_PORTRAIT;
         float scrollEdge = getResources().getDisplayMetrics().widthPixels * (isPortrait ? 0.06f : 0.14f);
         if (mTouchX > getWidth() - scrollEdge && getScrollX() < mColumnLayout.getWidth()) {
-            mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.LEFT);
+            float intensity = AutoScroller.getIntensity(mTouchX - (getWidth() - scrollEdge), scrollEdge);
+            mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.LEFT, intensity);
         } else if (mTouchX < scrollEdge && getScrollX() > 0) {
-            mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.RIGHT);
+            mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.RIGHT, AutoScroller.getIntensity(scrollEdge - mTouchX, scrollEdge));
         } else {
             mAutoScroller.stopAutoScroll();
         }
@@ -556,6 +661,38 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         return -1;
     }
 
+    /**
+     * Starts a batch of changes on all columns. The notifications of {@link #addItem}, {@link #removeItem},
+     * {@link #moveItem} and {@link #replaceItem} are collected and merged until {@link #commitBatch()} is called.
+     * Columns that are added during the batch are not part of it.
+     *
+     * @see DragItemAdapter#beginBatch()
+     */
+    public void beginBatch() {
+        ArrayList<DragItemAdapter> adapters = new ArrayList<>(mLists.size());
+        for (DragItemRecyclerView list : mLists) {
+            DragItemAdapter adapter = (DragItemAdapter) list.getAdapter();
+            adapter.beginBatch();
+            adapters.add(adapter);
+        }
+        mBatchAdapters.add(adapters);
+    }
+
+    /**
+     * Commits a batch of changes started with {@link #beginBatch()} on the columns it was started on.
+     *
+     * @see DragItemAdapter#commit()
+     */
+    public void commitBatch() {
+        if (mBatchAdapters.isEmpty()) {
+            throw new IllegalStateException("commitBatch() called without a matching beginBatch()");
+        }
+
+        for (DragItemAdapter adapter : mBatchAdapters.remove(mBatchAdapters.size() - 1)) {
+            adapter.commit();
+        }
+    }
+
     public void removeItem(int column, int row) {
         if (!isDragging() && mLists.size() > column && mLists.get(column).getAdapter().getItemCount() > row) {
             DragItemAdapter adapter = (DragItemAdapter) mLists.get(column).getAdapter();
@@ -588,14 +725,11 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
 
     public void moveItem(long itemId, int toColumn, int toRow, boolean scrollToItem) {
         for (int i = 0; i < mLists.size(); i++) {
-            RecyclerView.Adapter adapter = mLists.get(i).getAdapter();
-            final int count = adapter.getItemCount();
-            for (int j = 0; j < count; j++) {
-                long id = adapter.getItemId(j);
-                if (id == itemId) {
-                    moveItem(i, j, toColumn, toRow, scrollToItem);
-                    return;
-                }
+            DragItemAdapter adapter = (DragItemAdapter) mLists.get(i).getAdapter();
+            int pos = adapter.getPositionForItemId(itemId);
+            if (pos != NO_POSITION) {
+                moveItem(i, pos, toColumn, toRow, scrollToItem);
+                return;
             }
         }
     }
@@ -697,6 +831,80 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         }
     }
 
+    /**
+     * Set if the columns should only be reordered when an item is dropped, see {@link DragListView#setReorderOnlyOnDrop}.
+     * Moving an item to another column still removes it from the old column and adds it to the new one.
+     *
+     * @param reorderOnlyOnDrop True if the adapters should only be reordered on drop, false otherwise.
+     */
+    public void setReorderOnlyOnDrop(boolean reorderOnlyOnDrop) {
+        mReorderOnlyOnDrop = reorderOnlyOnDrop;
+        for (DragItemRecyclerView list : mLists) {
+            list.setReorderOnlyOnDrop(reorderOnlyOnDrop);
+        }
+    }
+
+    /**
+     * See {@link DragListView#setReorderHysteresis}.
+     */
+    public void setReorderHysteresis(float hysteresis) {
+        mReorderHysteresis = hysteresis;
+        for (DragItemRecyclerView list : mLists) {
+            list.setReorderHysteresis(hysteresis);
+        }
+    }
+
+    /**
+     * See {@link DragListView#setReorderVelocityLookahead}.
+     */
+    public void setReorderVelocityLookahead(long lookaheadMillis) {
+        mReorderVelocityLookahead = lookaheadMillis;
+        for (DragItemRecyclerView list : mLists) {
+            list.setReorderVelocityLookahead(lookaheadMillis);
+        }
+    }
+
+    /**
+     * Sets how long a drag has to stay at the edge before the next column is scrolled to, when snapping to columns while
+     * dragging. By default it starts at 1000 ms and gets 40% shorter for every column, down to 350 ms.
+     *
+     * @param dwellCurve The dwell times, or null for the default.
+     */
+    public void setColumnScrollDwellCurve(ColumnScrollDwellCurve dwellCurve) {
+        mAutoScroller.setColumnDwellCurve(dwellCurve);
+    }
+
+    /**
+     * See {@link DragListView#setAutoScrollSpeed}. Used both for scrolling the board and the columns.
+     */
+    public void setAutoScrollSpeed(float minDpPerSecond, float maxDpPerSecond) {
+        mMinAutoScrollSpeed = minDpPerSecond;
+        mMaxAutoScrollSpeed = maxDpPerSecond;
+        mAutoScroller.setScrollSpeed(minDpPerSecond, maxDpPerSecond);
+        for (DragItemRecyclerView list : mLists) {
+            list.setAutoScrollSpeed(minDpPerSecond, maxDpPerSecond);
+        }
+    }
+
+    /**
+     * See {@link DragListView#setAutoScrollAcceleration}. Used both for scrolling the board and the columns.
+     */
+    public void setAutoScrollAcceleration(float maxAcceleration, long rampMillis) {
+        mMaxAutoScrollAcceleration = maxAcceleration;
+        mAutoScrollAccelerationRamp = rampMillis;
+        mAutoScroller.setAcceleration(maxAcceleration, rampMillis);
+        for (DragItemRecyclerView list : mLists) {
+            list.setAutoScrollAcceleration(maxAcceleration, rampMillis);
+        }
+    }
+
+    /**
+     * See {@link DragListView#setTouchPredictionTime}. Used both when dragging items and columns.
+     */
+    public void setTouchPredictionTime(long predictionTime) {
+        mTouchPredictor.setPredictionTime(predictionTime);
+    }
+
     /**
      * @return The index of the currently focused column. If column snapping is not enabled this will always return 0.
      */
@@ -774,6 +982,10 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         mBoardListener = listener;
     }
 
+    public void setBoardGroupListener(BoardGroupListener listener) {
+        mBoardGroupListener = listener;
+    }
+
     public void setBoardCallback(BoardCallback callback) {
         mBoardCallback = callback;
     }
@@ -999,6 +1211,13 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
                     mBoardListener.onItemDragEnded(mDragStartColumn, mDragStartRow, getColumnOfList(recyclerView), newItemPosition);
                 }
             }
+
+            @Override
+            public void onGroupDragEnded(int[] fromPositions, int[] toPositions) {
+                if (mBoardGroupListener != null) {
+                    mBoardGroupListener.onItemsDragEnded(mDragStartColumn, fromPositions, getColumnOfList(recyclerView), toPositions);
+                }
+            }
         });
         recyclerView.setDragItemCallback(new DragItemRecyclerView.DragItemCallback() {
             @Override
@@ -1028,6 +1247,16 @@ public class BoardView extends HorizontalScrollView implements AutoScroller.Auto
         });
         recyclerView.setAdapter(adapter);
         recyclerView.setDragEnabled(mDragEnabled);
+        recyclerView.setReorderOnlyOnDrop(mReorderOnlyOnDrop);
+        recyclerView.setReorderHysteresis(mReorderHysteresis);
+        recyclerView.setReorderVelocityLookahead(mReorderVelocityLookahead);
+        recyclerView.setAutoScrollClock(mAutoScrollClock);
+        if (mMinAutoScrollSpeed >= 0) {
+            recyclerView.setAutoScrollSpeed(mMinAutoScrollSpeed, mMaxAutoScrollSpeed);
+        }
+        if (mMaxAutoScrollAcceleration >= 0) {
+            recyclerView.setAutoScrollAcceleration(mMaxAutoScrollAcceleration, mAutoScrollAccelerationRamp);
+        }
 
         Drawable columnBackgroundDrawable = columnProperties.getColumnBackgroundDrawable();
         recyclerView.setBackgroundDrawable(columnBackgroundDrawable);
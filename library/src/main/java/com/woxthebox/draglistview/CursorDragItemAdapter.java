@@ -0,0 +1,217 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import android.database.Cursor;
+import android.provider.BaseColumns;
+import android.util.LruCache;
+
+import androidx.annotation.CallSuper;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * A {@link DragItemAdapter} backed by a {@link Cursor}. Rows are read from the cursor when they are bound and only the
+ * most recently read rows are kept in memory. Drag and drop changes are kept in an {@link OverlayItemList} on top of
+ * the cursor, so no rows are copied or written when items are moved.
+ * <p/>
+ * To persist the new order, use {@link #getCursorPosition} to find out where the rows have been moved and then swap
+ * in a cursor with the persisted order with {@link #swapCursor}.
+ * <p/>
+ * The item ids are read from the {@link BaseColumns#_ID} column of the cursor. {@link #getPositionForItemId} doesn't
+ * build an index of all ids, it searches around the rows that have been bound or looked up lately, since the ids that
+ * are looked up while dragging belong to rows close to the visible ones, and among the items that have been added to
+ * the adapter. Ids of rows that are far from there are not found.
+ */
+public abstract class CursorDragItemAdapter<T, VH extends DragItemAdapter.ViewHolder> extends DragItemAdapter<T, VH> {
+
+    private final LruCache<Integer, T> mRowCache;
+    private final int mSearchRadius;
+    // Positions of the ids that have been bound or looked up lately, used as starting points for the search
+    private final LongIntHashMap mRecentPositions = new LongIntHashMap();
+    private int mLastBoundPosition;
+    private Cursor mCursor;
+    private int mIdColumn;
+
+    /**
+     * @param cacheSize The number of rows to keep in memory, should be at least the number of visible rows.
+     */
+    public CursorDragItemAdapter(int cacheSize) {
+        mRowCache = new LruCache<>(cacheSize);
+        mSearchRadius = Math.max(cacheSize, 32);
+    }
+
+    /**
+     * @return the item for the current row of the cursor.
+     */
+    public abstract T getItemFromCursor(Cursor cursor);
+
+    /**
+     * @return a unique id for an item that has been added to the adapter and is not a row of the cursor.
+     */
+    public abstract long getUniqueIdForItem(T item);
+
+    /**
+     * Swaps in a new cursor and drops all changes that have been done on top of the old one. The old cursor is not
+     * closed.
+     *
+     * @return the old cursor or null if there wasn't one.
+     */
+    public Cursor swapCursor(Cursor cursor) {
+        Cursor oldCursor = mCursor;
+        mCursor = cursor;
+        mRowCache.evictAll();
+        mRecentPositions.clear();
+        mLastBoundPosition = 0;
+        if (cursor == null) {
+            setItemList(null);
+            return oldCursor;
+        }
+
+        mIdColumn = cursor.getColumnIndexOrThrow(BaseColumns._ID);
+        setItemList(new OverlayItemList<>(new OverlayItemList.RowSource<T>() {
+            @Override
+            public int getCount() {
+                return mCursor.getCount();
+            }
+
+            @Override
+            public T getRow(int position) {
+                T item = mRowCache.get(position);
+                if (item == null) {
+                    mCursor.moveToPosition(position);
+                    item = getItemFromCursor(mCursor);
+                    mRowCache.put(position, item);
+                }
+                return item;
+            }
+        }));
+        return oldCursor;
+    }
+
+    public Cursor getCursor() {
+        return mCursor;
+    }
+
+    /**
+     * @return the position of the item in the cursor or -1 if the item has been added to the adapter.
+     */
+    public int getCursorPosition(int position) {
+        return mItemList instanceof OverlayItemList ? ((OverlayItemList<T>) mItemList).getSourcePosition(position) : -1;
+    }
+
+    /**
+     * @return true if items have been moved, added or removed since the cursor was swapped in.
+     */
+    public boolean hasChanges() {
+        return mItemList instanceof OverlayItemList && ((OverlayItemList<T>) mItemList).isModified();
+    }
+
+    @Override
+    public final long getUniqueItemId(int position) {
+        int cursorPosition = getCursorPosition(position);
+        if (cursorPosition == -1) {
+            return getUniqueIdForItem(mItemList.get(position));
+        }
+        // Read the id straight from the cursor so the rows don't have to be created when searching for an id
+        mCursor.moveToPosition(cursorPosition);
+        return mCursor.getLong(mIdColumn);
+    }
+
+    /**
+     * Searches for the id around the position it was last seen at, or around the last bound row if it hasn't been seen,
+     * and only reads the ids of the rows in between. If the id is not found close to there only the items that have
+     * been added to the adapter are checked, the rest of the cursor is never searched. Ids that are looked up while
+     * dragging and are not in the adapter, like the id of an item that is about to be added, would otherwise read every
+     * row. No index of all ids is kept.
+     */
+    @Override
+    public int getPositionForItemId(long id) {
+        int count = getItemCount();
+        if (count == 0 || id == RecyclerView.NO_ID) {
+            return RecyclerView.NO_POSITION;
+        }
+
+        int start = mRecentPositions.get(id, mLastBoundPosition);
+        int pos = findItemId(id, Math.min(start, count - 1), mSearchRadius);
+        if (pos == RecyclerView.NO_POSITION) {
+            pos = findAddedItemId(id);
+        }
+        if (pos != RecyclerView.NO_POSITION) {
+            rememberPosition(id, pos);
+        }
+        return pos;
+    }
+
+    @Override
+    void swapListItems(int pos1, int pos2) {
+        if (mItemList instanceof OverlayItemList) {
+            ((OverlayItemList<T>) mItemList).swap(pos1, pos2);
+        } else {
+            super.swapListItems(pos1, pos2);
+        }
+    }
+
+    @CallSuper
+    @Override
+    public void onBindDragState(@NonNull VH holder, int position) {
+        super.onBindDragState(holder, position);
+        mLastBoundPosition = position;
+        rememberPosition(holder.mItemId, position);
+    }
+
+    /**
+     * @return the position of the id at most radius rows from the start position, searching outwards from it.
+     */
+    private int findItemId(long id, int start, int radius) {
+        int count = getItemCount();
+        for (int offset = 0; offset <= radius; offset++) {
+            int before = start - offset;
+            int after = start + offset;
+            if (before < 0 && after >= count) {
+                break;
+            }
+            if (after < count && getItemId(after) == id) {
+                return after;
+            }
+            if (offset > 0 && before >= 0 && getItemId(before) == id) {
+                return before;
+            }
+        }
+        return RecyclerView.NO_POSITION;
+    }
+
+    private int findAddedItemId(long id) {
+        if (!(mItemList instanceof OverlayItemList)) {
+            return RecyclerView.NO_POSITION;
+        }
+        for (int pos : ((OverlayItemList<T>) mItemList).getAddedIndexes()) {
+            if (getUniqueIdForItem(mItemList.get(pos)) == id) {
+                return pos;
+            }
+        }
+        return RecyclerView.NO_POSITION;
+    }
+
+    private void rememberPosition(long id, int pos) {
+        // Keep the memory close to the visible window, forgetting a position only makes the next search start elsewhere
+        if (mRecentPositions.size() >= mSearchRadius * 4) {
+            mRecentPositions.clear();
+        }
+        mRecentPositions.put(id, pos);
+    }
+}
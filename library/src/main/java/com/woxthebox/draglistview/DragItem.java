@@ -30,6 +30,8 @@ import android.widget.FrameLayout;
 
 public class DragItem {
     protected static final int ANIMATION_DURATION = 250;
+    private static final int STACK_OFFSET_DP = 4;
+    private static final int MAX_STACK_LAYERS = 3;
     private View mDragView;
     private View mRealDragView;
 
@@ -43,9 +45,13 @@ public class DragItem {
     private float mPosTouchDy;
     private float mAnimationDx;
     private float mAnimationDy;
+    // Only moves the view towards the predicted touch, the drop is decided by the real position
+    private float mPredictionDx;
+    private float mPredictionDy;
     private boolean mCanDragHorizontally = true;
     private boolean mCanDragVertically = true;
     private boolean mSnapToTouch = true;
+    private int mDragItemCount = 1;
 
     DragItem(Context context) {
         mDragView = new View(context);
@@ -58,8 +64,20 @@ public class DragItem {
     }
 
     public void onBindDragView(View clickedView, View dragView) {
-        Bitmap bitmap = Bitmap.createBitmap(clickedView.getWidth(), clickedView.getHeight(), Bitmap.Config.ARGB_8888);
+        int stackSize = getStackSize(clickedView);
+        Bitmap bitmap = Bitmap.createBitmap(clickedView.getWidth() + stackSize, clickedView.getHeight() + stackSize, Bitmap.Config.ARGB_8888);
         Canvas canvas = new Canvas(bitmap);
+        if (stackSize > 0) {
+            // Draw the view stacked with copies behind it to show that several items are dragged
+            int layers = Math.min(mDragItemCount, MAX_STACK_LAYERS);
+            for (int i = layers - 1; i > 0; i--) {
+                int offset = stackSize * i / (layers - 1);
+                canvas.save();
+                canvas.translate(offset, offset);
+                clickedView.draw(canvas);
+                canvas.restore();
+            }
+        }
         clickedView.draw(canvas);
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
             dragView.setBackground(new BitmapDrawable(clickedView.getResources(), bitmap));
@@ -69,12 +87,34 @@ public class DragItem {
     }
 
     public void onMeasureDragView(View clickedView, View dragView) {
-        dragView.setLayoutParams(new FrameLayout.LayoutParams(clickedView.getMeasuredWidth(), clickedView.getMeasuredHeight()));
-        int widthSpec = View.MeasureSpec.makeMeasureSpec(clickedView.getMeasuredWidth(), View.MeasureSpec.EXACTLY);
-        int heightSpec = View.MeasureSpec.makeMeasureSpec(clickedView.getMeasuredHeight(), View.MeasureSpec.EXACTLY);
+        int stackSize = getStackSize(clickedView);
+        int width = clickedView.getMeasuredWidth() + stackSize;
+        int height = clickedView.getMeasuredHeight() + stackSize;
+        dragView.setLayoutParams(new FrameLayout.LayoutParams(width, height));
+        int widthSpec = View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY);
+        int heightSpec = View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY);
         dragView.measure(widthSpec, heightSpec);
     }
 
+    /**
+     * @return the number of items that are dragged, more than one when a selection of items is dragged together.
+     */
+    protected int getDragItemCount() {
+        return mDragItemCount;
+    }
+
+    void setDragItemCount(int dragItemCount) {
+        mDragItemCount = dragItemCount;
+    }
+
+    private int getStackSize(View view) {
+        if (mDragItemCount <= 1) {
+            return 0;
+        }
+        float density = view.getResources().getDisplayMetrics().density;
+        return (int) (STACK_OFFSET_DP * density) * (Math.min(mDragItemCount, MAX_STACK_LAYERS) - 1);
+    }
+
     public void onStartDragAnimation(View dragView) {
     }
 
@@ -120,6 +160,8 @@ public class DragItem {
     void hide() {
         mDragView.setVisibility(View.GONE);
         mRealDragView = null;
+        mPredictionDx = 0;
+        mPredictionDy = 0;
     }
 
     boolean isDragging() {
@@ -224,6 +266,15 @@ public class DragItem {
         updatePosition();
     }
 
+    /**
+     * Moves the drag view ahead of the touch position without changing {@link #getX} and {@link #getY}.
+     */
+    void setPredictionOffset(float dx, float dy) {
+        mPredictionDx = dx;
+        mPredictionDy = dy;
+        updatePosition();
+    }
+
     void setOffset(float offsetX, float offsetY) {
         mOffsetX = offsetX;
         mOffsetY = offsetY;
@@ -232,10 +283,10 @@ public class DragItem {
 
     private void updatePosition() {
         if (mCanDragHorizontally) {
-            mDragView.setX(mPosX + mOffsetX + mAnimationDx - mDragView.getMeasuredWidth() / 2f);
+            mDragView.setX(mPosX + mOffsetX + mAnimationDx + mPredictionDx - mDragView.getMeasuredWidth() / 2f);
         }
         if (mCanDragVertically) {
-            mDragView.setY(mPosY + mOffsetY + mAnimationDy - mDragView.getMeasuredHeight() / 2f);
+            mDragView.setY(mPosY + mOffsetY + mAnimationDy + mPredictionDy - mDragView.getMeasuredHeight() / 2f);
         }
 
         mDragView.invalidate();
@@ -18,11 +18,19 @@ package com.woxthebox.draglistview;
 
 import androidx.annotation.CallSuper;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.BatchingListUpdateCallback;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.MotionEvent;
 import android.view.View;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 
 public abstract class DragItemAdapter<T, VH extends DragItemAdapter.ViewHolder> extends RecyclerView.Adapter<VH> {
@@ -33,9 +41,34 @@ public abstract class DragItemAdapter<T, VH extends DragItemAdapter.ViewHolder>
         boolean isDragging();
     }
 
+    /**
+     * Payload used when only the drag state of an item has changed, i.e. when it starts or stops being the dragged item
+     * or the drop target. Holders bound with only this payload just update their drag state, see
+     * {@link #onBindDragState}.
+     */
+    public static final Object PAYLOAD_DRAG_STATE = new Object();
+
     private DragStartCallback mDragStartCallback;
     private long mDragItemId = RecyclerView.NO_ID;
     private long mDropTargetId = RecyclerView.NO_ID;
+    private long[] mDropTargetIds = new long[0];
+    private int mDropTargetVersion;
+    // Selected item ids in selection order, with an index from id to its place in the array
+    private long[] mSelectedItemIds = new long[0];
+    private int mSelectedItemCount;
+    private LongIntHashMap mSelectedItemIndexes = new LongIntHashMap();
+    private LongIntHashMap mItemIdPositions = new LongIntHashMap();
+    private boolean mItemIdPositionsValid;
+    private IdentityHashMap<T, Integer> mItemPositions;
+    private boolean mItemPositionsValid;
+    private AsyncDifferConfig<T> mDifferConfig;
+    private Handler mMainHandler;
+    private List<T> mPendingItemList;
+    private int mDiffGeneration;
+    private int mItemListModCount;
+    private BatchingListUpdateCallback mBatchingCallback;
+    private int mBatchDepth;
+    private boolean mBatchDataSetChanged;
     protected List<T> mItemList;
 
     /**
@@ -47,29 +80,275 @@ public abstract class DragItemAdapter<T, VH extends DragItemAdapter.ViewHolder>
         setHasStableIds(true);
     }
 
+    /**
+     * Sets the list with the items of the adapter. Any list implementation can be used, for columns with a very large
+     * number of items a {@link TreeItemList} can be used so moves, inserts and removes are done in O(log n).
+     */
     public void setItemList(List<T> itemList) {
+        // Any ongoing or pending diff is outdated now
+        mDiffGeneration++;
+        mPendingItemList = null;
         mItemList = itemList;
-        notifyDataSetChanged();
+        invalidateItemPositions();
+        dispatchDataSetChanged();
+    }
+
+    /**
+     * Starts a batch of changes. Until {@link #commit()} is called the changes done with {@link #addItem},
+     * {@link #removeItem}, {@link #changeItemPosition}, {@link #swapItems} and {@link #setItemList} are applied to the
+     * item list directly but the notifications are collected, and consecutive changes are merged into range
+     * notifications. Batches can be nested, the notifications are dispatched when the outermost batch is committed.
+     * <p/>
+     * The batch must be committed before returning to the main loop, otherwise the RecyclerView can be laid out with an
+     * item list that doesn't match the notifications it has received.
+     */
+    public void beginBatch() {
+        if (mBatchingCallback == null) {
+            mBatchingCallback = new BatchingListUpdateCallback(new AdapterListUpdateCallback(this));
+        }
+        mBatchDepth++;
+    }
+
+    /**
+     * Commits a batch of changes started with {@link #beginBatch()} and dispatches the merged notifications.
+     */
+    public void commit() {
+        if (mBatchDepth == 0) {
+            throw new IllegalStateException("commit() called without a matching beginBatch()");
+        }
+
+        mBatchDepth--;
+        if (mBatchDepth == 0) {
+            if (mBatchDataSetChanged) {
+                // Everything is rebound anyway so the collected range notifications can be dropped
+                mBatchingCallback = null;
+                mBatchDataSetChanged = false;
+                notifyDataSetChanged();
+            } else {
+                mBatchingCallback.dispatchLastEvent();
+            }
+        }
+    }
+
+    private void dispatchItemInserted(int pos) {
+        if (mBatchDepth > 0) {
+            mBatchingCallback.onInserted(pos, 1);
+        } else {
+            notifyItemInserted(pos);
+        }
+    }
+
+    private void dispatchItemRangeInserted(int pos, int count) {
+        if (mBatchDepth > 0) {
+            mBatchingCallback.onInserted(pos, count);
+        } else {
+            notifyItemRangeInserted(pos, count);
+        }
+    }
+
+    private void dispatchItemRemoved(int pos) {
+        if (mBatchDepth > 0) {
+            mBatchingCallback.onRemoved(pos, 1);
+        } else {
+            notifyItemRemoved(pos);
+        }
+    }
+
+    private void dispatchItemMoved(int fromPos, int toPos) {
+        if (mBatchDepth > 0) {
+            mBatchingCallback.onMoved(fromPos, toPos);
+        } else {
+            notifyItemMoved(fromPos, toPos);
+        }
+    }
+
+    /**
+     * Change notifications must go through the batch as well, otherwise they reach the RecyclerView before the
+     * collected structural changes they come after.
+     */
+    void dispatchItemRangeChanged(int pos, int count, Object payload) {
+        if (mBatchDepth > 0) {
+            mBatchingCallback.onChanged(pos, count, payload);
+        } else {
+            notifyItemRangeChanged(pos, count, payload);
+        }
+    }
+
+    private void dispatchDataSetChanged() {
+        if (mBatchDepth > 0) {
+            mBatchDataSetChanged = true;
+        } else {
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Sets the callback that is used by {@link #submitItemList} to calculate the difference between the current and a
+     * new item list.
+     */
+    public void setDiffCallback(DiffUtil.ItemCallback<T> diffCallback) {
+        setDiffConfig(diffCallback != null ? new AsyncDifferConfig.Builder<>(diffCallback).build() : null);
+    }
+
+    /**
+     * Like {@link #setDiffCallback} but with a config, e.g. to calculate the differences on an executor of your own. The
+     * results are always applied on the main thread.
+     */
+    public void setDiffConfig(AsyncDifferConfig<T> differConfig) {
+        mDifferConfig = differConfig;
+    }
+
+    /**
+     * Replaces the item list like {@link #setItemList} but instead of rebinding everything the difference to the current
+     * list is calculated on a background thread with the callback set in {@link #setDiffCallback}, and granular
+     * notifications are dispatched when done. If no diff callback has been set this is the same as {@link #setItemList}.
+     * <p/>
+     * An item that is being dragged is never disturbed. If the list is submitted during a drag it is held back until the
+     * drag has ended, and if several lists are submitted meanwhile only the last one is applied. The submitted list must
+     * not be modified after it has been submitted.
+     */
+    public void submitItemList(final List<T> itemList) {
+        if (mDifferConfig == null || mItemList == null) {
+            setItemList(itemList);
+            return;
+        }
+
+        if (mMainHandler == null) {
+            mMainHandler = new Handler(Looper.getMainLooper());
+        }
+
+        final int generation = ++mDiffGeneration;
+        if (isDragging()) {
+            mPendingItemList = itemList;
+            return;
+        }
+        mPendingItemList = null;
+
+        final List<T> oldItemList = getItemListSnapshot();
+        final int itemListModCount = mItemListModCount;
+        final DiffUtil.ItemCallback<T> diffCallback = mDifferConfig.getDiffCallback();
+        mDifferConfig.getBackgroundThreadExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                    @Override
+                    public int getOldListSize() {
+                        return oldItemList.size();
+                    }
+
+                    @Override
+                    public int getNewListSize() {
+                        return itemList.size();
+                    }
+
+                    @Override
+                    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                        return diffCallback.areItemsTheSame(oldItemList.get(oldItemPosition), itemList.get(newItemPosition));
+                    }
+
+                    @Override
+                    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                        return diffCallback.areContentsTheSame(oldItemList.get(oldItemPosition), itemList.get(newItemPosition));
+                    }
+
+                    @Override
+                    public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+                        return diffCallback.getChangePayload(oldItemList.get(oldItemPosition), itemList.get(newItemPosition));
+                    }
+                });
+
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mDiffGeneration) {
+                            // A newer list has been set or submitted
+                            return;
+                        }
+                        if (isDragging() || itemListModCount != mItemListModCount) {
+                            // The list has changed while diffing, the diff has to be done again
+                            submitItemList(itemList);
+                            return;
+                        }
+
+                        mItemList = itemList;
+                        invalidateItemPositions();
+                        result.dispatchUpdatesTo(DragItemAdapter.this);
+                    }
+                });
+            }
+        });
     }
 
     public List<T> getItemList() {
         return mItemList;
     }
 
+    /**
+     * Returns a copy of the item list that is not affected by later changes to the adapter, e.g. to roll back a drag
+     * that is rejected by calling {@link #setItemList} with the copy, or to read the list on a background thread. If the
+     * item list is a {@link TreeItemList} this is done in constant time with {@link TreeItemList#snapshot()}, otherwise
+     * the list is copied.
+     */
+    public List<T> getItemListSnapshot() {
+        if (mItemList == null) {
+            return null;
+        }
+        if (mItemList instanceof TreeItemList) {
+            return ((TreeItemList<T>) mItemList).snapshot();
+        }
+        return new ArrayList<>(mItemList);
+    }
+
+    /**
+     * Enables an identity index of the items so that {@link #getPositionForItem} is done in constant time instead of
+     * scanning the list. The index is kept up to date by the adapter methods and costs one map entry per item.
+     *
+     * @param enabled True if the identity index should be used, false otherwise. Disabled by default.
+     */
+    public void setItemIdentityIndexEnabled(boolean enabled) {
+        mItemPositions = enabled ? new IdentityHashMap<T, Integer>() : null;
+        mItemPositionsValid = false;
+    }
+
     public int getPositionForItem(T item) {
-        int count = getItemCount();
-        for (int i = 0; i < count; i++) {
-            if (mItemList.get(i) == item) {
-                return i;
+        if (mItemPositions == null) {
+            int count = getItemCount();
+            for (int i = 0; i < count; i++) {
+                if (mItemList.get(i) == item) {
+                    return i;
+                }
             }
+            return RecyclerView.NO_POSITION;
+        }
+
+        if (!mItemPositionsValid || mItemPositions.size() != getItemCount()) {
+            rebuildItemPositions();
         }
-        return RecyclerView.NO_POSITION;
+
+        Integer value = mItemPositions.get(item);
+        int pos = value != null ? toPosition(value) : RecyclerView.NO_POSITION;
+        if (value != null && (pos < 0 || pos >= getItemCount() || mItemList.get(pos) != item)) {
+            // The list has been changed without going through the adapter, rebuild and try again
+            rebuildItemPositions();
+            value = mItemPositions.get(item);
+            pos = value != null ? toPosition(value) : RecyclerView.NO_POSITION;
+        }
+        return pos;
     }
 
     public Object removeItem(int pos) {
         if (mItemList != null && mItemList.size() > pos && pos >= 0) {
-            Object item = mItemList.remove(pos);
-            notifyItemRemoved(pos);
+            if (mItemIdPositionsValid) {
+                mItemIdPositions.remove(getItemId(pos));
+            }
+            T item = mItemList.remove(pos);
+            if (mItemPositionsValid) {
+                mItemPositions.remove(item);
+            }
+            onItemRemoved(pos);
+            mItemListModCount++;
+            shiftItemPositions(pos, mItemList.size() - 1);
+            dispatchItemRemoved(pos);
             return item;
         }
         return null;
@@ -78,33 +357,178 @@ public abstract class DragItemAdapter<T, VH extends DragItemAdapter.ViewHolder>
     public void addItem(int pos, T item) {
         if (mItemList != null && mItemList.size() >= pos) {
             mItemList.add(pos, item);
-            notifyItemInserted(pos);
+            onItemInserted(pos);
+            mItemListModCount++;
+            updateItemPositions(pos, pos);
+            shiftItemPositions(pos + 1, mItemList.size() - 1);
+            dispatchItemInserted(pos);
+        }
+    }
+
+    /**
+     * Adds several items at the position with a single range notification.
+     */
+    public void addItems(int pos, List<T> items) {
+        if (mItemList != null && mItemList.size() >= pos && !items.isEmpty()) {
+            mItemList.addAll(pos, items);
+            for (int i = 0; i < items.size(); i++) {
+                onItemInserted(pos + i);
+            }
+            mItemListModCount++;
+            updateItemPositions(pos, pos + items.size() - 1);
+            shiftItemPositions(pos + items.size(), mItemList.size() - 1);
+            dispatchItemRangeInserted(pos, items.size());
         }
     }
 
     public void changeItemPosition(int fromPos, int toPos) {
         if (mItemList != null && mItemList.size() > fromPos && mItemList.size() > toPos) {
-            T item = mItemList.remove(fromPos);
-            mItemList.add(toPos, item);
-            notifyItemMoved(fromPos, toPos);
+            moveListItem(fromPos, toPos);
+            onItemMoved(fromPos, toPos);
+            mItemListModCount++;
+            shiftItemPositions(Math.min(fromPos, toPos), Math.max(fromPos, toPos));
+            dispatchItemMoved(fromPos, toPos);
         }
     }
 
     public void swapItems(int pos1, int pos2) {
         if (mItemList != null && mItemList.size() > pos1 && mItemList.size() > pos2) {
-            Collections.swap(mItemList, pos1, pos2);
-            notifyDataSetChanged();
+            swapListItems(pos1, pos2);
+            onItemsSwapped(pos1, pos2);
+            mItemListModCount++;
+            updateItemPositions(pos1, pos1);
+            updateItemPositions(pos2, pos2);
+            dispatchDataSetChanged();
         }
     }
 
+    /**
+     * Looks up the position of an item id in constant time by using an index that is kept up to date by
+     * {@link #addItem}, {@link #removeItem}, {@link #changeItemPosition}, {@link #swapItems} and {@link #setItemList}.
+     * With a {@link TreeItemList} the lookup is O(log n), and in return adding and removing items is O(log n) as well
+     * instead of updating the index for all items after the position.
+     *
+     * @return the position of the item with the id or {@link RecyclerView#NO_POSITION} if the item can't be found.
+     */
     public int getPositionForItemId(long id) {
+        // Entries of removed ids are caught by the position check below, so only a missing entry forces a rebuild here
+        if (!mItemIdPositionsValid || mItemIdPositions.size() < getItemCount()) {
+            rebuildItemIdPositions();
+        }
+
+        int value = mItemIdPositions.get(id, RecyclerView.NO_POSITION);
+        int pos = value != RecyclerView.NO_POSITION ? toPosition(value) : RecyclerView.NO_POSITION;
+        if (value != RecyclerView.NO_POSITION && (pos < 0 || pos >= getItemCount() || getItemId(pos) != id)) {
+            // The list has been changed without going through the adapter, rebuild and try again
+            rebuildItemIdPositions();
+            value = mItemIdPositions.get(id, RecyclerView.NO_POSITION);
+            pos = value != RecyclerView.NO_POSITION ? toPosition(value) : RecyclerView.NO_POSITION;
+        }
+        return pos;
+    }
+
+    /**
+     * Call this if {@link #mItemList} has been modified directly instead of through the adapter methods. The indexes
+     * used by {@link #getPositionForItemId} and {@link #getPositionForItem} will then be rebuilt on the next lookup.
+     */
+    public void invalidateItemPositions() {
+        onItemListChanged();
+        mItemIdPositionsValid = false;
+        mItemIdPositions.clear();
+        mItemPositionsValid = false;
+        if (mItemPositions != null) {
+            mItemPositions.clear();
+        }
+    }
+
+    private void rebuildItemIdPositions() {
+        mItemIdPositions.clear();
         int count = getItemCount();
         for (int i = 0; i < count; i++) {
-            if (id == getItemId(i)) {
-                return i;
+            mItemIdPositions.put(getItemId(i), toIndexValue(i));
+        }
+        mItemIdPositionsValid = true;
+    }
+
+    private void rebuildItemPositions() {
+        mItemPositions.clear();
+        // Iterate backwards so the first occurrence wins if the same item is added more than once
+        for (int i = getItemCount() - 1; i >= 0; i--) {
+            mItemPositions.put(mItemList.get(i), toIndexValue(i));
+        }
+        mItemPositionsValid = true;
+    }
+
+    // With a TreeItemList the indexes store keys from TreeItemList#keyAt instead of positions. A key follows its item
+    // when other items are added or removed, so only the items that are added or replaced need to be indexed again.
+
+    private boolean isIndexedByKey() {
+        return mItemList instanceof TreeItemList;
+    }
+
+    private int toIndexValue(int pos) {
+        return isIndexedByKey() ? ((TreeItemList<T>) mItemList).keyAt(pos) : pos;
+    }
+
+    private int toPosition(int indexValue) {
+        return isIndexedByKey() ? ((TreeItemList<T>) mItemList).indexOfKey(indexValue) : indexValue;
+    }
+
+    // Moves and swaps in the item list, overridden by adapters in this package whose list can't tell its items apart
+
+    void moveListItem(int fromPos, int toPos) {
+        if (mItemList instanceof TreeItemList) {
+            // Keeps the key of the item
+            ((TreeItemList<T>) mItemList).move(fromPos, toPos);
+        } else {
+            mItemList.add(toPos, mItemList.remove(fromPos));
+        }
+    }
+
+    void swapListItems(int pos1, int pos2) {
+        Collections.swap(mItemList, pos1, pos2);
+    }
+
+    // Hooks for adapters in this package that keep per position data in sync with the item list.
+    // They are called after the item list has been changed but before the indexes are updated.
+
+    void onItemListChanged() {
+    }
+
+    void onItemInserted(int pos) {
+    }
+
+    void onItemRemoved(int pos) {
+    }
+
+    void onItemMoved(int fromPos, int toPos) {
+    }
+
+    void onItemsSwapped(int pos1, int pos2) {
+    }
+
+    /**
+     * Updates the indexes for the items in the range, which have been added or replaced.
+     */
+    void updateItemPositions(int fromPos, int toPos) {
+        // Only the positions in the changed range are updated, an index is lazily rebuilt if it is not valid
+        for (int i = fromPos; i <= toPos; i++) {
+            if (mItemIdPositionsValid) {
+                mItemIdPositions.put(getItemId(i), toIndexValue(i));
+            }
+            if (mItemPositionsValid) {
+                mItemPositions.put(mItemList.get(i), toIndexValue(i));
             }
         }
-        return RecyclerView.NO_POSITION;
+    }
+
+    /**
+     * Updates the indexes for the items in the range, which are the same items as before but at other positions.
+     */
+    private void shiftItemPositions(int fromPos, int toPos) {
+        if (!isIndexedByKey()) {
+            updateItemPositions(fromPos, toPos);
+        }
     }
 
     @Override
@@ -120,10 +544,45 @@ public abstract class DragItemAdapter<T, VH extends DragItemAdapter.ViewHolder>
     @CallSuper
     @Override
     public void onBindViewHolder(@NonNull VH holder, int position) {
+        onBindDragState(holder, position);
+        holder.setDragStartCallback(mDragStartCallback);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull VH holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_DRAG_STATE) {
+                onBindViewHolder(holder, position);
+                return;
+            }
+        }
+        onBindDragState(holder, position);
+    }
+
+    /**
+     * Binds the drag state of the holder, this is also called when the holder is rebound with only the
+     * {@link #PAYLOAD_DRAG_STATE} payload. Override to change how the dragged item and drop target are shown.
+     */
+    @CallSuper
+    public void onBindDragState(@NonNull VH holder, int position) {
         long itemId = getItemId(position);
         holder.mItemId = itemId;
         holder.itemView.setVisibility(mDragItemId == itemId ? View.INVISIBLE : View.VISIBLE);
-        holder.setDragStartCallback(mDragStartCallback);
+    }
+
+    private void notifyDragStateChanged(long itemId) {
+        if (itemId == RecyclerView.NO_ID) {
+            return;
+        }
+        int pos = getPositionForItemId(itemId);
+        if (pos != RecyclerView.NO_POSITION) {
+            dispatchItemRangeChanged(pos, 1, PAYLOAD_DRAG_STATE);
+        }
     }
 
     @Override
@@ -137,17 +596,150 @@ public abstract class DragItemAdapter<T, VH extends DragItemAdapter.ViewHolder>
     }
 
     void setDragItemId(long dragItemId) {
+        if (mDragItemId == dragItemId) {
+            return;
+        }
+        long oldDragItemId = mDragItemId;
         mDragItemId = dragItemId;
+        notifyDragStateChanged(oldDragItemId);
+        notifyDragStateChanged(dragItemId);
+        if (dragItemId == RecyclerView.NO_ID && mPendingItemList != null) {
+            // Post so the drag has ended completely before the held back list is applied
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (mPendingItemList != null && !isDragging()) {
+                        submitItemList(mPendingItemList);
+                    }
+                }
+            });
+        }
+    }
+
+    long getDragItemId() {
+        return mDragItemId;
+    }
+
+    private boolean isDragging() {
+        return mDragItemId != RecyclerView.NO_ID || (mDragStartCallback != null && mDragStartCallback.isDragging());
     }
 
     void setDropTargetId(long dropTargetId) {
+        if (mDropTargetId == dropTargetId) {
+            return;
+        }
+        long oldDropTargetId = mDropTargetId;
         mDropTargetId = dropTargetId;
+        mDropTargetVersion++;
+        notifyDragStateChanged(oldDropTargetId);
+        notifyDragStateChanged(dropTargetId);
     }
 
     public long getDropTargetId() {
         return mDropTargetId;
     }
 
+    /**
+     * Sets more items that are drawn with the drop target drawables, in addition to the item that the dragged item will
+     * be swapped with, e.g. to show all items that can be dropped on.
+     *
+     * @param itemIds The ids of the items, or none to only draw the current drop target.
+     */
+    public void setDropTargetIds(long... itemIds) {
+        long[] oldDropTargetIds = mDropTargetIds;
+        mDropTargetIds = itemIds.clone();
+        mDropTargetVersion++;
+        for (long itemId : oldDropTargetIds) {
+            notifyDragStateChanged(itemId);
+        }
+        for (long itemId : mDropTargetIds) {
+            notifyDragStateChanged(itemId);
+        }
+    }
+
+    public boolean isDropTarget(long itemId) {
+        if (itemId == RecyclerView.NO_ID) {
+            return false;
+        }
+        if (itemId == mDropTargetId) {
+            return true;
+        }
+        for (long dropTargetId : mDropTargetIds) {
+            if (dropTargetId == itemId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Selects or deselects an item. When a selected item is dragged, all selected items are dragged together and are
+     * dropped as a block in the order they had in the list. Override {@link #onBindDragState} to show if an item is selected, holders
+     * of items that are selected or deselected are rebound with {@link #PAYLOAD_DRAG_STATE}.
+     */
+    public void setItemSelected(long itemId, boolean selected) {
+        int index = mSelectedItemIndexes.get(itemId, -1);
+        if (selected == (index != -1)) {
+            return;
+        }
+
+        if (selected) {
+            if (mSelectedItemCount == mSelectedItemIds.length) {
+                long[] selectedItemIds = new long[Math.max(8, mSelectedItemIds.length * 2)];
+                System.arraycopy(mSelectedItemIds, 0, selectedItemIds, 0, mSelectedItemCount);
+                mSelectedItemIds = selectedItemIds;
+            }
+            mSelectedItemIds[mSelectedItemCount] = itemId;
+            mSelectedItemIndexes.put(itemId, mSelectedItemCount);
+            mSelectedItemCount++;
+        } else {
+            mSelectedItemIndexes.remove(itemId);
+            mSelectedItemCount--;
+            System.arraycopy(mSelectedItemIds, index + 1, mSelectedItemIds, index, mSelectedItemCount - index);
+            for (int i = index; i < mSelectedItemCount; i++) {
+                mSelectedItemIndexes.put(mSelectedItemIds[i], i);
+            }
+        }
+        notifyDragStateChanged(itemId);
+    }
+
+    public boolean isItemSelected(long itemId) {
+        return mSelectedItemIndexes.get(itemId, -1) != -1;
+    }
+
+    public int getSelectedItemCount() {
+        return mSelectedItemCount;
+    }
+
+    /**
+     * @return the ids of the selected items in the order they were selected.
+     */
+    public long[] getSelectedItemIds() {
+        long[] selectedItemIds = new long[mSelectedItemCount];
+        System.arraycopy(mSelectedItemIds, 0, selectedItemIds, 0, mSelectedItemCount);
+        return selectedItemIds;
+    }
+
+    public void clearSelection() {
+        long[] selectedItemIds = getSelectedItemIds();
+        mSelectedItemCount = 0;
+        mSelectedItemIndexes.clear();
+        for (long itemId : selectedItemIds) {
+            notifyDragStateChanged(itemId);
+        }
+    }
+
+    boolean hasDropTargets() {
+        return mDropTargetId != RecyclerView.NO_ID || mDropTargetIds.length > 0;
+    }
+
+    /**
+     * @return a number that changes every time the drop targets change.
+     */
+    int getDropTargetVersion() {
+        return mDropTargetVersion;
+    }
+
     public static abstract class ViewHolder extends RecyclerView.ViewHolder {
         public View mGrabView;
         public long mItemId;
@@ -21,13 +21,21 @@ import android.animation.AnimatorListenerAdapter;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.recyclerview.widget.StaggeredGridLayoutManager;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class DragItemRecyclerView extends RecyclerView implements AutoScroller.AutoScrollListener {
 
@@ -37,6 +45,27 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
         void onDragging(int itemPosition, float x, float y);
 
         void onDragEnded(int newItemPosition);
+
+        void onGroupDragEnded(int[] fromPositions, int[] toPositions);
+    }
+
+    /**
+     * The selected items that are dragged together with the dragged item. They are taken out of the list while
+     * dragging, so only the dragged item is moved, and put back around it on drop.
+     */
+    static class DragGroup {
+        // Positions of all items in the group, including the dragged item, when the drag started
+        final int[] fromPositions;
+        // The other items in the order they had in the list
+        final List<Object> items;
+        // Index of the dragged item in the group
+        final int dragItemIndex;
+
+        DragGroup(int[] fromPositions, List<Object> items, int dragItemIndex) {
+            this.fromPositions = fromPositions;
+            this.items = items;
+            this.dragItemIndex = dragItemIndex;
+        }
     }
 
     public interface DragItemCallback {
@@ -62,12 +91,54 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
     private int mDragItemPosition;
     private int mTouchSlop;
     private float mStartY;
-    private boolean mClipToPadding;
     private boolean mCanNotDragAboveTop;
     private boolean mCanNotDragBelowBottom;
     private boolean mScrollingEnabled = true;
     private boolean mDisableReorderWhenDragging;
     private boolean mDragEnabled = true;
+    // Bounds of the children along the scroll direction including margins, used to find a child with a binary search.
+    // A count of -1 means that the children have moved since the bounds were read.
+    private int[] mChildStarts = new int[0];
+    private int[] mChildMaxEnds = new int[0];
+    private int mChildBoundsCount = -1;
+    private boolean mChildBoundsSorted;
+    // Changed every time the children move, so resolvers know when their own lookups are out of date
+    private int mChildBoundsVersion;
+    private DropPositionResolver mDropPositionResolver = CHILD_VIEW_DROP_POSITION_RESOLVER;
+    private boolean mCustomDropPositionResolver;
+    private int mDragLayoutPassCount;
+    // True from the first child that a layout pass scraps until the children are attached again
+    private boolean mLayoutPassStarted;
+    private boolean mReorderOnlyOnDrop;
+    // Position where the dragged item will be dropped when reordering only on drop, shown as a gap in the list
+    private int mGapPosition = NO_POSITION;
+    private int mGapSize;
+    private float mReorderHysteresis;
+    private long mReorderVelocityLookahead;
+    // Smoothed velocity of the drag in pixels per millisecond
+    private float mDragVelocityX;
+    private float mDragVelocityY;
+    private float mLastDragX;
+    private float mLastDragY;
+    private long mLastDragTime;
+    private int mReorderCount;
+    private int mAvoidedReorderCount;
+    private int mLastAvoidedPosition = NO_POSITION;
+    // Children that are drop targets, only looked up again when the children or the drop targets have changed
+    private final ArrayList<View> mDropTargetViews = new ArrayList<>();
+    private boolean mDropTargetViewsValid;
+    private int mDropTargetVersion;
+    private DragGroup mDragGroup;
+    private int[] mDroppedGroupPositions;
+
+    // Used for layout managers without a built in resolver, drops at the child under the drag position
+    private static final DropPositionResolver CHILD_VIEW_DROP_POSITION_RESOLVER = new DropPositionResolver() {
+        @Override
+        public int findDropPosition(DragItemRecyclerView recyclerView, float x, float y, int dragPosition) {
+            View view = recyclerView.findChildView(x, y);
+            return view != null ? recyclerView.getChildLayoutPosition(view) : NO_POSITION;
+        }
+    };
 
     public DragItemRecyclerView(Context context) {
         super(context);
@@ -102,17 +173,15 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
             }
 
             private void drawDecoration(Canvas c, RecyclerView parent, Drawable drawable) {
-                if (mAdapter == null || mAdapter.getDropTargetId() == NO_ID || drawable == null) {
+                if (mAdapter == null || !mAdapter.hasDropTargets() || drawable == null) {
                     return;
                 }
 
-                for (int i = 0; i < parent.getChildCount(); i++) {
-                    View item = parent.getChildAt(i);
-                    int pos = getChildAdapterPosition(item);
-                    if (pos != NO_POSITION && mAdapter.getItemId(pos) == mAdapter.getDropTargetId()) {
-                        drawable.setBounds(item.getLeft(), item.getTop(), item.getRight(), item.getBottom());
-                        drawable.draw(c);
-                    }
+                updateDropTargetViews();
+                for (int i = 0; i < mDropTargetViews.size(); i++) {
+                    View item = mDropTargetViews.get(i);
+                    drawable.setBounds(item.getLeft(), item.getTop(), item.getRight(), item.getBottom());
+                    drawable.draw(c);
                 }
             }
         });
@@ -163,11 +232,52 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
         mDisableReorderWhenDragging = disableReorder;
     }
 
+    void setReorderOnlyOnDrop(boolean reorderOnlyOnDrop) {
+        mReorderOnlyOnDrop = reorderOnlyOnDrop;
+    }
+
+    void setReorderHysteresis(float hysteresis) {
+        mReorderHysteresis = hysteresis;
+    }
+
+    void setReorderVelocityLookahead(long lookaheadMillis) {
+        mReorderVelocityLookahead = lookaheadMillis;
+    }
+
     public void setDropTargetDrawables(Drawable backgroundDrawable, Drawable foregroundDrawable) {
         mDropTargetBackgroundDrawable = backgroundDrawable;
         mDropTargetForegroundDrawable = foregroundDrawable;
     }
 
+    /**
+     * Sets how the position to move the dragged item to is found. By default a resolver is picked from the layout
+     * manager, set null to go back to that.
+     */
+    public void setDropPositionResolver(DropPositionResolver resolver) {
+        mCustomDropPositionResolver = resolver != null;
+        mDropPositionResolver = resolver != null ? resolver : createDropPositionResolver(getLayoutManager());
+    }
+
+    void setAutoScrollClock(AutoScrollClock clock) {
+        mAutoScroller.setClock(clock);
+    }
+
+    /**
+     * Lets the next auto scroll of this list go on at the speed the auto scroll of the other list had built up, for
+     * when the dragged item moves to this list in the middle of scrolling.
+     */
+    void continueAutoScrollFrom(DragItemRecyclerView list) {
+        mAutoScroller.continueFrom(list.mAutoScroller);
+    }
+
+    void setAutoScrollSpeed(float minDpPerSecond, float maxDpPerSecond) {
+        mAutoScroller.setScrollSpeed(minDpPerSecond, maxDpPerSecond);
+    }
+
+    void setAutoScrollAcceleration(float maxAcceleration, long rampMillis) {
+        mAutoScroller.setAcceleration(maxAcceleration, rampMillis);
+    }
+
     void setDragItemListener(DragItemListener listener) {
         mListener = listener;
     }
@@ -188,10 +298,28 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
         return mDragItemId;
     }
 
-    @Override
-    public void setClipToPadding(boolean clipToPadding) {
-        super.setClipToPadding(clipToPadding);
-        mClipToPadding = clipToPadding;
+    /**
+     * @return the number of layout passes during the current or last drag in this list. Can be used to measure how
+     * much layout work the reordering causes. Passes that are run without onLayout, like the adapter updates of a list
+     * with a fixed size, are counted too, also when there are several of them in the same frame.
+     */
+    public int getDragLayoutPassCount() {
+        return mDragLayoutPassCount;
+    }
+
+    /**
+     * @return the number of times the dragged item has changed position during the current or last drag in this list.
+     */
+    public int getReorderCount() {
+        return mReorderCount;
+    }
+
+    /**
+     * @return the number of times a position change was held back by the hysteresis or velocity prediction during the
+     * current or last drag in this list, see {@link DragListView#setReorderHysteresis}.
+     */
+    public int getAvoidedReorderCount() {
+        return mAvoidedReorderCount;
     }
 
     @Override
@@ -225,8 +353,75 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
     @Override
     public void setLayoutManager(LayoutManager layout) {
         super.setLayoutManager(layout);
-        if (!(layout instanceof LinearLayoutManager)) {
-            throw new RuntimeException("Layout must be an instance of LinearLayoutManager");
+        if (!mCustomDropPositionResolver) {
+            mDropPositionResolver = createDropPositionResolver(layout);
+        }
+        invalidateChildBounds();
+    }
+
+    private static DropPositionResolver createDropPositionResolver(LayoutManager layout) {
+        if (layout instanceof GridLayoutManager) {
+            return new GridDropPositionResolver();
+        } else if (layout instanceof LinearLayoutManager) {
+            return new LinearDropPositionResolver();
+        } else if (layout instanceof StaggeredGridLayoutManager) {
+            return new StaggeredGridDropPositionResolver();
+        }
+        return CHILD_VIEW_DROP_POSITION_RESOLVER;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+        invalidateChildBounds();
+        mDropTargetViewsValid = false;
+    }
+
+    @Override
+    protected void attachViewToParent(View child, int index, ViewGroup.LayoutParams params) {
+        super.attachViewToParent(child, index, params);
+        // Every layout pass scraps the children and attaches them again, also a pass that doesn't go through onLayout,
+        // like the adapter updates of a list with a fixed size that are laid out from a posted runnable
+        invalidateChildBounds();
+        mLayoutPassStarted = false;
+    }
+
+    @Override
+    protected void detachViewFromParent(int index) {
+        super.detachViewFromParent(index);
+        // Each dispatchLayout starts by scrapping all children, so the first detach after an attach is a new pass
+        if (!mLayoutPassStarted) {
+            mLayoutPassStarted = true;
+            if (isDragging()) {
+                mDragLayoutPassCount++;
+            }
+        }
+    }
+
+    @Override
+    public void onScrolled(int dx, int dy) {
+        super.onScrolled(dx, dy);
+        invalidateChildBounds();
+    }
+
+    @Override
+    public void onChildAttachedToWindow(@NonNull View child) {
+        super.onChildAttachedToWindow(child);
+        invalidateChildBounds();
+        mDropTargetViewsValid = false;
+        if (mGapPosition != NO_POSITION) {
+            // A child scrolled into view, move it directly to its place around the gap
+            setGapTranslation(child, getGapTranslation(getChildAdapterPosition(child)), false);
+        }
+    }
+
+    @Override
+    public void onChildDetachedFromWindow(@NonNull View child) {
+        super.onChildDetachedFromWindow(child);
+        invalidateChildBounds();
+        mDropTargetViewsValid = false;
+        if (mGapPosition != NO_POSITION) {
+            setGapTranslation(child, 0, false);
         }
     }
 
@@ -254,11 +449,23 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
             return getChildAt(0);
         }
 
-        for (int i = count - 1; i >= 0; i--) {
+        if (!isChildBoundsSorted()) {
+            for (int i = count - 1; i >= 0; i--) {
+                final View child = getChildAt(i);
+                if (containsPoint(child, x, y)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        // Grid rows start at the same position, so the children of the row are checked by walking back from the last
+        // child that starts before the point until no earlier child can reach the point.
+        float value = isVerticalLayout() ? y : x;
+        int index = findLastChildStartingBefore(value);
+        for (int i = index; i >= 0 && mChildMaxEnds[i] >= value; i--) {
             final View child = getChildAt(i);
-            MarginLayoutParams params = (MarginLayoutParams) child.getLayoutParams();
-            if (x >= child.getLeft() - params.leftMargin && x <= child.getRight() + params.rightMargin
-                    && y >= child.getTop() - params.topMargin && y <= child.getBottom() + params.bottomMargin) {
+            if (containsPoint(child, x, y)) {
                 return child;
             }
         }
@@ -266,9 +473,122 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
         return null;
     }
 
+    private void updateDropTargetViews() {
+        if (mDropTargetViewsValid && mDropTargetVersion == mAdapter.getDropTargetVersion()) {
+            return;
+        }
+
+        mDropTargetViews.clear();
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (mAdapter.isDropTarget(getChildItemId(child))) {
+                mDropTargetViews.add(child);
+            }
+        }
+        mDropTargetViewsValid = true;
+        mDropTargetVersion = mAdapter.getDropTargetVersion();
+    }
+
+    private static boolean containsPoint(View child, float x, float y) {
+        MarginLayoutParams params = (MarginLayoutParams) child.getLayoutParams();
+        return x >= child.getLeft() - params.leftMargin && x <= child.getRight() + params.rightMargin
+                && y >= child.getTop() - params.topMargin && y <= child.getBottom() + params.bottomMargin;
+    }
+
+    /**
+     * @return true if the list scrolls vertically.
+     */
+    boolean isVerticalLayout() {
+        LayoutManager layoutManager = getLayoutManager();
+        if (layoutManager instanceof LinearLayoutManager) {
+            return ((LinearLayoutManager) layoutManager).getOrientation() == LinearLayoutManager.VERTICAL;
+        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+            return ((StaggeredGridLayoutManager) layoutManager).getOrientation() == StaggeredGridLayoutManager.VERTICAL;
+        }
+        return layoutManager == null || !layoutManager.canScrollHorizontally();
+    }
+
+    /**
+     * @return the size of the dragged item along the scroll direction.
+     */
+    int getDragItemSize() {
+        View dragView = mDragItem.getDragItemView();
+        return isVerticalLayout() ? dragView.getMeasuredHeight() : dragView.getMeasuredWidth();
+    }
+
+    /**
+     * @return a number that changes every time the children of the list have moved.
+     */
+    int getChildBoundsVersion() {
+        return mChildBoundsVersion;
+    }
+
+    /**
+     * @return true if the children are in layout order along the scroll direction, which is needed for
+     * {@link #findLastChildStartingBefore}. Not the case for a reversed layout.
+     */
+    boolean isChildBoundsSorted() {
+        if (mChildBoundsCount != getChildCount()) {
+            updateChildBounds();
+        }
+        return mChildBoundsSorted;
+    }
+
+    /**
+     * @return the index of the last child that starts at or before the value along the scroll direction, margins
+     * included, or -1 if there is none.
+     */
+    int findLastChildStartingBefore(float value) {
+        if (mChildBoundsCount != getChildCount()) {
+            updateChildBounds();
+        }
+        int low = 0;
+        int high = mChildBoundsCount - 1;
+        int index = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (mChildStarts[mid] <= value) {
+                index = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return index;
+    }
+
+    private void invalidateChildBounds() {
+        mChildBoundsCount = -1;
+        mChildBoundsVersion++;
+    }
+
+    private void updateChildBounds() {
+        final int count = getChildCount();
+        if (mChildStarts.length < count) {
+            mChildStarts = new int[count];
+            mChildMaxEnds = new int[count];
+        }
+
+        boolean vertical = isVerticalLayout();
+        mChildBoundsSorted = true;
+        for (int i = 0; i < count; i++) {
+            final View child = getChildAt(i);
+            MarginLayoutParams params = (MarginLayoutParams) child.getLayoutParams();
+            int start = vertical ? child.getTop() - params.topMargin : child.getLeft() - params.leftMargin;
+            int end = vertical ? child.getBottom() + params.bottomMargin : child.getRight() + params.rightMargin;
+            mChildStarts[i] = start;
+            mChildMaxEnds[i] = i > 0 ? Math.max(mChildMaxEnds[i - 1], end) : end;
+            if (i > 0 && start < mChildStarts[i - 1]) {
+                // Children are not in layout order, e.g. with a reversed layout, use a linear search instead
+                mChildBoundsSorted = false;
+            }
+        }
+        mChildBoundsCount = count;
+    }
+
     private boolean shouldChangeItemPosition(int newPos) {
         // Check if drag position is changed and valid and that we are not in a hold position state
-        if (mHoldChangePosition || mDragItemPosition == NO_POSITION || mDragItemPosition == newPos) {
+        if (mHoldChangePosition || mDragItemPosition == NO_POSITION || getCurrentDragPosition() == newPos) {
             return false;
         }
         // If we are not allowed to drag above top or bottom and new pos is 0 or item count then return false
@@ -283,94 +603,251 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
     }
 
     private void updateDragPositionAndScroll() {
-        View view = findChildView(mDragItem.getX(), mDragItem.getY());
-        int newPos = getChildLayoutPosition(view);
-        if (newPos == NO_POSITION || view == null) {
-            return;
+        int currentPos = getCurrentDragPosition();
+        int newPos = mDropPositionResolver.findDropPosition(this, mDragItem.getX(), mDragItem.getY(), currentPos);
+        // Without a drop position, e.g. over an empty part of the list, the edges are still checked so a scroll that goes
+        // on in two directions on a board doesn't stop
+        if (newPos != NO_POSITION) {
+            updateDragPosition(newPos, currentPos);
         }
+        updateAutoScroll();
+    }
 
-        // If using a LinearLayoutManager and the new view has a bigger height we need to check if passing centerY as well.
-        // If not doing this extra check the bigger item will move back again when dragging slowly over it.
-        boolean linearLayoutManager = getLayoutManager() instanceof LinearLayoutManager && !(getLayoutManager() instanceof GridLayoutManager);
-        if (linearLayoutManager) {
-            MarginLayoutParams params = (MarginLayoutParams) view.getLayoutParams();
-            int viewHeight = view.getMeasuredHeight() + params.topMargin + params.bottomMargin;
-            int viewCenterY = view.getTop() - params.topMargin + viewHeight / 2;
-            boolean dragDown = mDragItemPosition < getChildLayoutPosition(view);
-            boolean movedPassedCenterY = dragDown ? mDragItem.getY() > viewCenterY : mDragItem.getY() < viewCenterY;
-
-            // If new height is bigger then current and not passed centerY then reset back to current position
-            if (viewHeight > mDragItem.getDragItemView().getMeasuredHeight() && !movedPassedCenterY) {
-                newPos = mDragItemPosition;
+    private void updateDragPosition(int newPos, int currentPos) {
+        boolean holdable = mReorderHysteresis > 0 || mReorderVelocityLookahead > 0;
+        if (holdable && newPos != currentPos && currentPos != NO_POSITION) {
+            View view = getLayoutManager().findViewByPosition(newPos);
+            if (view != null && !isReorderIntended(view, newPos > currentPos)) {
+                // Count each held back position once, not once per drag update
+                if (newPos != mLastAvoidedPosition) {
+                    mLastAvoidedPosition = newPos;
+                    mAvoidedReorderCount++;
+                }
+                newPos = currentPos;
             }
         }
 
-        LinearLayoutManager layoutManager = (LinearLayoutManager) getLayoutManager();
         if (shouldChangeItemPosition(newPos)) {
+            mReorderCount++;
+            mLastAvoidedPosition = NO_POSITION;
             if (mDisableReorderWhenDragging) {
                 mAdapter.setDropTargetId(mAdapter.getItemId(newPos));
-                mAdapter.notifyDataSetChanged();
+            } else if (mGapPosition != NO_POSITION) {
+                moveGap(newPos);
             } else {
-                int pos = layoutManager.findFirstVisibleItemPosition();
-                View posView = layoutManager.findViewByPosition(pos);
-                mAdapter.changeItemPosition(mDragItemPosition, newPos);
-                mDragItemPosition = newPos;
+                moveDragItem(newPos);
+            }
+        }
+    }
 
-                // Since notifyItemMoved scrolls the list we need to scroll back to where we were after the position change.
-                if (layoutManager.getOrientation() == LinearLayoutManager.VERTICAL) {
-                    int topMargin = ((MarginLayoutParams) posView.getLayoutParams()).topMargin;
-                    layoutManager.scrollToPositionWithOffset(pos, posView.getTop() - topMargin);
-                } else {
-                    int leftMargin = ((MarginLayoutParams) posView.getLayoutParams()).leftMargin;
-                    layoutManager.scrollToPositionWithOffset(pos, posView.getLeft() - leftMargin);
-                }
+    private void updateAutoScroll() {
+        // Check if first or last item has been reached from the scroll range, so the items don't have to be laid out
+        boolean vertical = isVerticalLayout();
+        boolean lastItemReached = vertical ? !canScrollVertically(1) : !canScrollHorizontally(1);
+        boolean firstItemReached = vertical ? !canScrollVertically(-1) : !canScrollHorizontally(-1);
+
+        // Start auto scroll if at the edge, which is half the size of the dragged item so it doesn't change with the
+        // items it is dragged over
+        View view = mDragItem.getDragItemView();
+        if (vertical) {
+            float edge = view.getMeasuredHeight() / 2;
+            float y = mDragItem.getY();
+            if (y > getHeight() - edge && !lastItemReached) {
+                mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.UP, AutoScroller.getIntensity(y - (getHeight() - edge), edge));
+            } else if (y < edge && !firstItemReached) {
+                mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.DOWN, AutoScroller.getIntensity(edge - y, edge));
+            } else {
+                mAutoScroller.stopAutoScroll();
+            }
+        } else {
+            float edge = view.getMeasuredWidth() / 2;
+            float x = mDragItem.getX();
+            if (x > getWidth() - edge && !lastItemReached) {
+                mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.LEFT, AutoScroller.getIntensity(x - (getWidth() - edge), edge));
+            } else if (x < edge && !firstItemReached) {
+                mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.RIGHT, AutoScroller.getIntensity(edge - x, edge));
+            } else {
+                mAutoScroller.stopAutoScroll();
             }
         }
+    }
 
-        boolean lastItemReached = false;
-        boolean firstItemReached = false;
-        int top = mClipToPadding ? getPaddingTop() : 0;
-        int bottom = mClipToPadding ? getHeight() - getPaddingBottom() : getHeight();
-        int left = mClipToPadding ? getPaddingLeft() : 0;
-        int right = mClipToPadding ? getWidth() - getPaddingRight() : getWidth();
-        ViewHolder lastChild = findViewHolderForLayoutPosition(mAdapter.getItemCount() - 1);
-        ViewHolder firstChild = findViewHolderForLayoutPosition(0);
+    private void moveDragItem(int newPos) {
+        if (!(getLayoutManager() instanceof LinearLayoutManager)) {
+            // Other layout managers keep their own anchor, there is no offset to restore
+            mAdapter.changeItemPosition(mDragItemPosition, newPos);
+            mDragItemPosition = newPos;
+            return;
+        }
 
-        // Check if first or last item has been reached
-        if (layoutManager.getOrientation() == LinearLayoutManager.VERTICAL) {
-            if (lastChild != null && lastChild.itemView.getBottom() <= bottom) {
-                lastItemReached = true;
-            }
-            if (firstChild != null && firstChild.itemView.getTop() >= top) {
-                firstItemReached = true;
+        LinearLayoutManager layoutManager = (LinearLayoutManager) getLayoutManager();
+        int pos = layoutManager.findFirstVisibleItemPosition();
+        View posView = layoutManager.findViewByPosition(pos);
+        // The layout is anchored to the first visible item, it is only moved if the item is part of the move
+        boolean anchorMoved = pos >= Math.min(mDragItemPosition, newPos) && pos <= Math.max(mDragItemPosition, newPos);
+        mAdapter.changeItemPosition(mDragItemPosition, newPos);
+        mDragItemPosition = newPos;
+
+        // Since notifyItemMoved scrolls the list when the anchor is moved we need to scroll back to where we
+        // were after the position change. Otherwise the layout is kept as is without an extra pending scroll.
+        if (anchorMoved && posView != null) {
+            if (layoutManager.getOrientation() == LinearLayoutManager.VERTICAL) {
+                int topMargin = ((MarginLayoutParams) posView.getLayoutParams()).topMargin;
+                layoutManager.scrollToPositionWithOffset(pos, posView.getTop() - topMargin);
+            } else {
+                int leftMargin = ((MarginLayoutParams) posView.getLayoutParams()).leftMargin;
+                layoutManager.scrollToPositionWithOffset(pos, posView.getLeft() - leftMargin);
             }
+        }
+    }
+
+    /**
+     * Checks if the drag has gone far enough into the view to move the dragged item to its position. The drag position
+     * is first predicted ahead in time with the drag velocity, so a drag that is moving back doesn't reorder and a fast
+     * drag reorders a bit earlier.
+     *
+     * @param forward True if the view is after the current position of the dragged item.
+     */
+    private boolean isReorderIntended(View view, boolean forward) {
+        if (mReorderHysteresis <= 0 && mReorderVelocityLookahead <= 0) {
+            return true;
+        }
+
+        boolean vertical = isVerticalLayout();
+        float dragPos = vertical ? mDragItem.getY() : mDragItem.getX();
+        float velocity = vertical ? mDragVelocityY : mDragVelocityX;
+        float predictedPos = dragPos + velocity * mReorderVelocityLookahead;
+        int viewStart = vertical ? view.getTop() : view.getLeft();
+        int viewEnd = vertical ? view.getBottom() : view.getRight();
+        // How far into the view the drag has gone from the side closest to the dragged item
+        float depth = forward ? predictedPos - viewStart : viewEnd - predictedPos;
+        return depth >= mReorderHysteresis * (viewEnd - viewStart);
+    }
+
+    private void updateDragVelocity(float x, float y) {
+        long time = SystemClock.uptimeMillis();
+        if (mLastDragTime != 0 && time > mLastDragTime) {
+            long dt = time - mLastDragTime;
+            // Smooth the velocity since touch events are not evenly spaced in time
+            mDragVelocityX = 0.5f * mDragVelocityX + 0.5f * (x - mLastDragX) / dt;
+            mDragVelocityY = 0.5f * mDragVelocityY + 0.5f * (y - mLastDragY) / dt;
+        }
+        mLastDragX = x;
+        mLastDragY = y;
+        mLastDragTime = time;
+    }
+
+    private void resetDragStats() {
+        mDragLayoutPassCount = 0;
+        mReorderCount = 0;
+        mAvoidedReorderCount = 0;
+        mLastAvoidedPosition = NO_POSITION;
+        mDragVelocityX = 0;
+        mDragVelocityY = 0;
+        mLastDragTime = 0;
+    }
+
+    /**
+     * @return the position the dragged item would be dropped at right now.
+     */
+    private int getCurrentDragPosition() {
+        return mGapPosition != NO_POSITION ? mGapPosition : mDragItemPosition;
+    }
+
+    /**
+     * Starts showing the drop position as a gap if the list should only be reordered on drop. Only done for linear
+     * layouts, in a grid the items would have to move between rows so they are reordered directly instead.
+     */
+    private void startGap(View dragView) {
+        boolean linearLayoutManager = getLayoutManager() instanceof LinearLayoutManager && !(getLayoutManager() instanceof GridLayoutManager);
+        if (!mReorderOnlyOnDrop || mDisableReorderWhenDragging || !linearLayoutManager) {
+            mGapPosition = NO_POSITION;
+            return;
+        }
+
+        MarginLayoutParams params = dragView.getLayoutParams() instanceof MarginLayoutParams
+                ? (MarginLayoutParams) dragView.getLayoutParams() : new MarginLayoutParams(0, 0);
+        if (isVerticalLayout()) {
+            mGapSize = dragView.getMeasuredHeight() + params.topMargin + params.bottomMargin;
         } else {
-            if (lastChild != null && lastChild.itemView.getRight() <= right) {
-                lastItemReached = true;
-            }
-            if (firstChild != null && firstChild.itemView.getLeft() >= left) {
-                firstItemReached = true;
+            mGapSize = dragView.getMeasuredWidth() + params.leftMargin + params.rightMargin;
+        }
+        mGapPosition = mDragItemPosition;
+    }
+
+    private void moveGap(int newPos) {
+        int oldGapPosition = mGapPosition;
+        mGapPosition = newPos;
+        // Only the items between the old and the new gap change side of it
+        int fromPos = Math.min(oldGapPosition, newPos);
+        int toPos = Math.max(oldGapPosition, newPos);
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            int pos = getChildAdapterPosition(child);
+            if (pos >= fromPos && pos <= toPos) {
+                setGapTranslation(child, getGapTranslation(pos), true);
             }
         }
+    }
 
-        // Start auto scroll if at the edge
-        if (layoutManager.getOrientation() == LinearLayoutManager.VERTICAL) {
-            if (mDragItem.getY() > getHeight() - view.getHeight() / 2 && !lastItemReached) {
-                mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.UP);
-            } else if (mDragItem.getY() < view.getHeight() / 2 && !firstItemReached) {
-                mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.DOWN);
+    /**
+     * @return how far the item at the position is moved to make room for the gap. The items between the dragged item
+     * and the gap move into the place of the dragged item.
+     */
+    private int getGapTranslation(int pos) {
+        if (pos == NO_POSITION || pos == mDragItemPosition) {
+            return 0;
+        }
+        if (mGapPosition > mDragItemPosition && pos > mDragItemPosition && pos <= mGapPosition) {
+            return -mGapSize;
+        }
+        if (mGapPosition < mDragItemPosition && pos >= mGapPosition && pos < mDragItemPosition) {
+            return mGapSize;
+        }
+        return 0;
+    }
+
+    private void setGapTranslation(View child, int translation, boolean animate) {
+        boolean vertical = isVerticalLayout();
+        child.animate().cancel();
+        if (animate && getItemAnimator() != null) {
+            if (vertical) {
+                child.animate().translationY(translation).setDuration(getItemAnimator().getMoveDuration()).start();
             } else {
-                mAutoScroller.stopAutoScroll();
+                child.animate().translationX(translation).setDuration(getItemAnimator().getMoveDuration()).start();
             }
+        } else if (vertical) {
+            child.setTranslationY(translation);
         } else {
-            if (mDragItem.getX() > getWidth() - view.getWidth() / 2 && !lastItemReached) {
-                mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.LEFT);
-            } else if (mDragItem.getX() < view.getWidth() / 2 && !firstItemReached) {
-                mAutoScroller.startAutoScroll(AutoScroller.ScrollDirection.RIGHT);
+            child.setTranslationX(translation);
+        }
+    }
+
+    /**
+     * Stops showing the gap. The children are moved to where they are shown, so a following adapter change animates
+     * them from there instead of jumping back to where they were laid out.
+     */
+    private void endGap() {
+        if (mGapPosition == NO_POSITION) {
+            return;
+        }
+
+        mGapPosition = NO_POSITION;
+        boolean vertical = isVerticalLayout();
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            child.animate().cancel();
+            if (vertical) {
+                int offset = Math.round(child.getTranslationY());
+                child.setTranslationY(0);
+                child.offsetTopAndBottom(offset);
             } else {
-                mAutoScroller.stopAutoScroll();
+                int offset = Math.round(child.getTranslationX());
+                child.setTranslationX(0);
+                child.offsetLeftAndRight(offset);
             }
         }
+        invalidateChildBounds();
     }
 
     boolean startDrag(View itemView, long itemId, float x, float y) {
@@ -388,14 +865,16 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
         getParent().requestDisallowInterceptTouchEvent(false);
         mDragState = DragState.DRAG_STARTED;
         mDragItemId = itemId;
-        mDragItem.startDrag(itemView, x, y);
+        resetDragStats();
         mDragItemPosition = dragItemPosition;
+        startDragGroup();
+        mDragItem.startDrag(itemView, x, y);
+        startGap(itemView);
         updateDragPositionAndScroll();
 
         mAdapter.setDragItemId(mDragItemId);
-        mAdapter.notifyDataSetChanged();
         if (mListener != null) {
-            mListener.onDragStarted(mDragItemPosition, mDragItem.getX(), mDragItem.getY());
+            mListener.onDragStarted(dragItemPosition, mDragItem.getX(), mDragItem.getY());
         }
 
         invalidate();
@@ -410,13 +889,14 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
         mDragState = DragState.DRAGGING;
         mDragItemPosition = mAdapter.getPositionForItemId(mDragItemId);
         mDragItem.setPosition(x, y);
+        updateDragVelocity(x, y);
 
         if (!mAutoScroller.isAutoScrolling()) {
             updateDragPositionAndScroll();
         }
 
         if (mListener != null) {
-            mListener.onDragging(mDragItemPosition, x, y);
+            mListener.onDragging(getCurrentDragPosition(), x, y);
         }
         invalidate();
     }
@@ -439,6 +919,22 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
             mAdapter.setDropTargetId(NO_ID);
         }
 
+        if (mGapPosition != NO_POSITION) {
+            // The only change to the adapter in the whole drag
+            int gapPosition = mGapPosition;
+            endGap();
+            if (gapPosition != mDragItemPosition) {
+                moveDragItem(gapPosition);
+            } else {
+                // Lay out the children again in case they were stopped in the middle of moving back
+                requestLayout();
+            }
+        }
+
+        if (mDragGroup != null) {
+            endDragGroup();
+        }
+
         // Post so layout is done before we start end animation
         post(new Runnable() {
             @Override
@@ -466,14 +962,19 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
     private void onDragItemAnimationEnd() {
         mAdapter.setDragItemId(NO_ID);
         mAdapter.setDropTargetId(NO_ID);
-        mAdapter.notifyDataSetChanged();
 
         mDragState = DragState.DRAG_ENDED;
         if (mListener != null) {
+            if (mDroppedGroupPositions != null) {
+                mListener.onGroupDragEnded(mDragGroup.fromPositions, mDroppedGroupPositions);
+            }
             mListener.onDragEnded(mDragItemPosition);
         }
 
+        mDragGroup = null;
+        mDroppedGroupPositions = null;
         mDragItemId = NO_ID;
+        mDragItem.setDragItemCount(1);
         mDragItem.hide();
         setEnabled(true);
         invalidate();
@@ -503,9 +1004,11 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
 
         mDragState = DragState.DRAG_STARTED;
         mDragItemId = itemId;
+        resetDragStats();
         mAdapter.setDragItemId(mDragItemId);
         mAdapter.addItem(pos, item);
         mDragItemPosition = pos;
+        startGap(mDragItem.getDragItemView());
 
         mHoldChangePosition = true;
         postDelayed(new Runnable() {
@@ -523,6 +1026,7 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
             return null;
         }
         mAutoScroller.stopAutoScroll();
+        endGap();
         Object item = mAdapter.removeItem(mDragItemPosition);
         mAdapter.setDragItemId(NO_ID);
         mDragState = DragState.DRAG_ENDED;
@@ -531,4 +1035,90 @@ public class DragItemRecyclerView extends RecyclerView implements AutoScroller.A
         invalidate();
         return item;
     }
+
+    /**
+     * Takes the group that is dragged together with the dragged item so it can be moved to another list.
+     */
+    DragGroup takeDragGroup() {
+        DragGroup dragGroup = mDragGroup;
+        mDragGroup = null;
+        return dragGroup;
+    }
+
+    void setDragGroup(DragGroup dragGroup) {
+        mDragGroup = dragGroup;
+    }
+
+    /**
+     * Takes the other selected items out of the list if the dragged item is selected, so the selection can be moved as
+     * one item while dragging.
+     */
+    private void startDragGroup() {
+        mDragGroup = null;
+        mDroppedGroupPositions = null;
+        mDragItem.setDragItemCount(1);
+        if (mDisableReorderWhenDragging || !mAdapter.isItemSelected(mDragItemId) || mAdapter.getSelectedItemCount() < 2) {
+            return;
+        }
+
+        long[] itemIds = mAdapter.getSelectedItemIds();
+        int[] positions = new int[itemIds.length];
+        int count = 0;
+        for (long itemId : itemIds) {
+            int pos = mAdapter.getPositionForItemId(itemId);
+            if (pos != NO_POSITION) {
+                positions[count++] = pos;
+            }
+        }
+        if (count < 2) {
+            return;
+        }
+        positions = Arrays.copyOf(positions, count);
+        Arrays.sort(positions);
+
+        int dragItemIndex = Arrays.binarySearch(positions, mDragItemPosition);
+        Object[] items = new Object[count - 1];
+        // Remove from the end so the positions that are left are not shifted, consecutive removes are merged by the batch
+        mAdapter.beginBatch();
+        for (int i = count - 1; i >= 0; i--) {
+            if (i != dragItemIndex) {
+                items[i < dragItemIndex ? i : i - 1] = mAdapter.removeItem(positions[i]);
+            }
+        }
+        mAdapter.commit();
+
+        mDragItemPosition -= dragItemIndex;
+        mDragGroup = new DragGroup(positions, Arrays.asList(items), dragItemIndex);
+        mDragItem.setDragItemCount(count);
+    }
+
+    /**
+     * Puts the group back around the dropped item.
+     */
+    private void endDragGroup() {
+        mDroppedGroupPositions = insertDragGroup(mAdapter, mDragGroup, mDragItemPosition);
+        mDragItemPosition = mDroppedGroupPositions[mDragGroup.dragItemIndex];
+    }
+
+    /**
+     * Inserts the other items of the group as one block around the dropped item at dropPosition. The items that came
+     * before the dragged item take over dropPosition, so the dragged item ends up after them.
+     *
+     * @return The positions of all items in the group, including the dragged item, after the insert.
+     */
+    @SuppressWarnings("unchecked")
+    static int[] insertDragGroup(DragItemAdapter adapter, DragGroup group, int dropPosition) {
+        int dragItemIndex = group.dragItemIndex;
+        List<Object> items = group.items;
+        adapter.beginBatch();
+        adapter.addItems(dropPosition + 1, items.subList(dragItemIndex, items.size()));
+        adapter.addItems(dropPosition, items.subList(0, dragItemIndex));
+        adapter.commit();
+
+        int[] positions = new int[items.size() + 1];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = dropPosition + i;
+        }
+        return positions;
+    }
 }
@@ -18,6 +18,7 @@ package com.woxthebox.draglistview;
 
 import android.content.Context;
 import android.graphics.drawable.Drawable;
+import androidx.core.view.ViewCompat;
 import androidx.recyclerview.widget.DefaultItemAnimator;
 import androidx.recyclerview.widget.RecyclerView;
 import android.util.AttributeSet;
@@ -52,6 +53,20 @@ public class DragListView extends FrameLayout {
         }
     }
 
+    /**
+     * Listener for drags of selected items, see {@link DragItemAdapter#setItemSelected}.
+     */
+    public interface DragListGroupListener {
+        /**
+         * Called when a selection of items has been dropped, before {@link DragListListener#onItemDragEnded} for the
+         * dragged item. The items are dropped as a block so the new positions follow each other.
+         *
+         * @param fromPositions The positions of the items when the drag started, in the order they had in the list.
+         * @param toPositions   The new positions of the items, in the same order.
+         */
+        void onItemsDragEnded(int[] fromPositions, int[] toPositions);
+    }
+
     public interface DragListCallback {
         boolean canDragItemAtPosition(int dragPosition);
 
@@ -72,11 +87,30 @@ public class DragListView extends FrameLayout {
 
     private DragItemRecyclerView mRecyclerView;
     private DragListListener mDragListListener;
+    private DragListGroupListener mDragListGroupListener;
     private DragListCallback mDragListCallback;
     private DragItem mDragItem;
     private ListSwipeHelper mSwipeHelper;
     private float mTouchX;
     private float mTouchY;
+    private boolean mDragFramePending;
+    private final Runnable mDragFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mDragFramePending = false;
+            if (isDragging()) {
+                mRecyclerView.onDragging(mTouchX, mTouchY);
+                updateTouchPrediction();
+            }
+        }
+    };
+    private final TouchPredictor mTouchPredictor = new TouchPredictor();
+    private final Runnable mTouchStoppedRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mDragItem.setPredictionOffset(0, 0);
+        }
+    };
 
     public DragListView(Context context) {
         super(context);
@@ -118,18 +152,45 @@ public class DragListView extends FrameLayout {
         if (isDragging()) {
             switch (event.getAction()) {
                 case MotionEvent.ACTION_MOVE:
-                    mRecyclerView.onDragging(event.getX(), event.getY());
+                    if (mTouchPredictor.isEnabled()) {
+                        mTouchPredictor.addMotionEvent(event);
+                    }
+                    // Touch events can be delivered several times per frame, only handle the latest position once per frame
+                    if (!mDragFramePending) {
+                        mDragFramePending = true;
+                        ViewCompat.postOnAnimation(this, mDragFrameRunnable);
+                    }
                     break;
                 case MotionEvent.ACTION_UP:
                 case MotionEvent.ACTION_CANCEL:
+                    if (mDragFramePending) {
+                        // Handle the last position before dropping
+                        removeCallbacks(mDragFrameRunnable);
+                        mDragFrameRunnable.run();
+                    }
+                    // The drop animation starts from the real position
+                    removeCallbacks(mTouchStoppedRunnable);
+                    mDragItem.setPredictionOffset(0, 0);
                     mRecyclerView.onDragEnded();
                     break;
             }
             return true;
         }
+        mTouchPredictor.reset();
         return false;
     }
 
+    private void updateTouchPrediction() {
+        if (!mTouchPredictor.isEnabled()) {
+            return;
+        }
+        mTouchPredictor.predict();
+        mDragItem.setPredictionOffset(mTouchPredictor.getPredictedDx(), mTouchPredictor.getPredictedDy());
+        // Move the drag item back to the finger if it stops, no more touch events come then
+        removeCallbacks(mTouchStoppedRunnable);
+        postDelayed(mTouchStoppedRunnable, TouchPredictor.STALE_TIME);
+    }
+
     private DragItemRecyclerView createRecyclerView() {
         final DragItemRecyclerView recyclerView = (DragItemRecyclerView) LayoutInflater.from(getContext()).inflate(R.layout.drag_item_recycler_view, this, false);
         recyclerView.setMotionEventSplittingEnabled(false);
@@ -161,6 +222,13 @@ public class DragListView extends FrameLayout {
                     mDragListListener.onItemDragEnded(mDragStartPosition, newItemPosition);
                 }
             }
+
+            @Override
+            public void onGroupDragEnded(int[] fromPositions, int[] toPositions) {
+                if (mDragListGroupListener != null) {
+                    mDragListGroupListener.onItemsDragEnded(fromPositions, toPositions);
+                }
+            }
         });
         recyclerView.setDragItemCallback(new DragItemRecyclerView.DragItemCallback() {
             @Override
@@ -247,10 +315,55 @@ public class DragListView extends FrameLayout {
         mRecyclerView.setLayoutManager(layout);
     }
 
+    /**
+     * Sets how the position to move the dragged item to is found, needed for layout managers other than
+     * {@link androidx.recyclerview.widget.LinearLayoutManager}, {@link androidx.recyclerview.widget.GridLayoutManager}
+     * and {@link androidx.recyclerview.widget.StaggeredGridLayoutManager}. Set null to use the built in resolvers.
+     */
+    public void setDropPositionResolver(DropPositionResolver resolver) {
+        mRecyclerView.setDropPositionResolver(resolver);
+    }
+
+    /**
+     * Sets how fast the list scrolls when an item is dragged to an edge. The speed goes from the min speed where the edge
+     * starts to the max speed at the end of it, so the deeper the drag goes into the edge the faster it scrolls.
+     * Defaults to 300 and 1200 dp per second.
+     */
+    public void setAutoScrollSpeed(float minDpPerSecond, float maxDpPerSecond) {
+        mRecyclerView.setAutoScrollSpeed(minDpPerSecond, maxDpPerSecond);
+    }
+
+    /**
+     * Sets how much the scroll speed builds up when a drag is held at an edge, which makes it much quicker to drag an
+     * item far away in a long list. The speed is multiplied with an acceleration that grows from 1 to the max
+     * acceleration, slowly at first, and reaches it after the ramp time. Defaults to 10 times faster after 3000 ms.
+     *
+     * @param maxAcceleration How many times faster the scroll gets at most, 1 to not accelerate.
+     * @param rampMillis      How long the drag has to be held at the edge to reach the max acceleration.
+     */
+    public void setAutoScrollAcceleration(float maxAcceleration, long rampMillis) {
+        mRecyclerView.setAutoScrollAcceleration(maxAcceleration, rampMillis);
+    }
+
+    /**
+     * Draws the drag item where the finger is predicted to be when the frame is shown, instead of where the last touch
+     * event was, so it doesn't trail behind the finger. The prediction only moves the drag item, the real touch position
+     * is still used to find where the item is dropped. Off by default.
+     *
+     * @param predictionTime How far ahead in ms to predict, around one or two frames works well. 0 turns it off.
+     */
+    public void setTouchPredictionTime(long predictionTime) {
+        mTouchPredictor.setPredictionTime(predictionTime);
+    }
+
     public void setDragListListener(DragListListener listener) {
         mDragListListener = listener;
     }
 
+    public void setDragListGroupListener(DragListGroupListener listener) {
+        mDragListGroupListener = listener;
+    }
+
     public void setDragListCallback(DragListCallback callback) {
         mDragListCallback = callback;
     }
@@ -320,6 +433,40 @@ public class DragListView extends FrameLayout {
         mRecyclerView.setDisableReorderWhenDragging(disableReorder);
     }
 
+    /**
+     * Set if the list should only be reordered when the item is dropped. While dragging, the position where the item
+     * will be dropped is shown as a gap by moving the other items out of the way, and the adapter is changed only once
+     * on drop. Only used with a linear layout and when reorder has not been disabled with
+     * {@link #setDisableReorderWhenDragging}. By default items are reordered in the adapter while dragging.
+     *
+     * @param reorderOnlyOnDrop True if the adapter should only be reordered on drop, false otherwise.
+     */
+    public void setReorderOnlyOnDrop(boolean reorderOnlyOnDrop) {
+        mRecyclerView.setReorderOnlyOnDrop(reorderOnlyOnDrop);
+    }
+
+    /**
+     * Set how far into an item the dragged item must be dragged before it takes that position, as a fraction of the
+     * item size. A higher value keeps the dragged item from moving back and forth when it is held close to the border
+     * between two items. By default it is 0 and the position changes as soon as the border is passed.
+     *
+     * @param hysteresis Fraction of the item size between 0 and 1.
+     */
+    public void setReorderHysteresis(float hysteresis) {
+        mRecyclerView.setReorderHysteresis(hysteresis);
+    }
+
+    /**
+     * Set how far ahead in time the drag position is predicted with the drag velocity before checking the
+     * {@link #setReorderHysteresis hysteresis}. A drag that is moving back then doesn't change position, and a fast
+     * drag changes position a bit earlier. By default it is 0 and no prediction is done.
+     *
+     * @param lookaheadMillis Time in milliseconds to predict the drag position ahead.
+     */
+    public void setReorderVelocityLookahead(long lookaheadMillis) {
+        mRecyclerView.setReorderVelocityLookahead(lookaheadMillis);
+    }
+
     /**
      * If {@link #setDisableReorderWhenDragging} has been set to True then a background and/or foreground drawable
      * can be provided to highlight the current item which will be swapped when dropping. These drawables
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Finds the position a dragged item is moved to when it is dragged over a list. A resolver is picked from the layout
+ * manager of the list, {@link LinearDropPositionResolver}, {@link GridDropPositionResolver} or
+ * {@link StaggeredGridDropPositionResolver}, and other layout managers use the child under the drag position. Set a
+ * custom resolver with {@link DragItemRecyclerView#setDropPositionResolver} for layout managers with other rules, like
+ * a flexbox layout.
+ * <p/>
+ * A resolver is called for every drag update, so it should not have to look at every child of the list.
+ */
+public interface DropPositionResolver {
+    /**
+     * @param recyclerView The list the item is dragged in.
+     * @param x            The x coordinate of the drag in the list.
+     * @param y            The y coordinate of the drag in the list.
+     * @param dragPosition The position the dragged item would be dropped at right now.
+     * @return the layout position to move the dragged item to, or {@link RecyclerView#NO_POSITION} if it should stay
+     * where it is.
+     */
+    int findDropPosition(DragItemRecyclerView recyclerView, float x, float y, int dragPosition);
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import android.view.View;
+
+import androidx.recyclerview.widget.GridLayoutManager;
+
+import static androidx.recyclerview.widget.RecyclerView.NO_POSITION;
+
+/**
+ * Resolves the drop position for a {@link GridLayoutManager}. The row under the drag is found with a binary search
+ * over the children and the span from where the drag is across the rows, so only the children of one row are looked at.
+ * A drag past the last item of a row that isn't full drops at that item.
+ */
+public class GridDropPositionResolver implements DropPositionResolver {
+
+    @Override
+    public int findDropPosition(DragItemRecyclerView recyclerView, float x, float y, int dragPosition) {
+        GridLayoutManager layoutManager = (GridLayoutManager) recyclerView.getLayoutManager();
+        if (recyclerView.getChildCount() == 0) {
+            return NO_POSITION;
+        }
+        if (!recyclerView.isChildBoundsSorted()) {
+            // Children are not in layout order, e.g. with a reversed layout, use the child under the drag instead
+            View view = recyclerView.findChildView(x, y);
+            return view != null ? recyclerView.getChildLayoutPosition(view) : NO_POSITION;
+        }
+
+        boolean vertical = layoutManager.getOrientation() == GridLayoutManager.VERTICAL;
+        int span = getSpan(recyclerView, layoutManager.getSpanCount(), vertical ? x : y, vertical);
+
+        // The last child that starts before the drag is the last child of its row, so walk back through the row to the
+        // child that covers the span. Above the first row the first row is used.
+        int index = Math.max(recyclerView.findLastChildStartingBefore(vertical ? y : x), 0);
+        for (int i = index; i >= 0; i--) {
+            View child = recyclerView.getChildAt(i);
+            GridLayoutManager.LayoutParams params = (GridLayoutManager.LayoutParams) child.getLayoutParams();
+            if (params.getSpanIndex() <= span) {
+                return recyclerView.getChildLayoutPosition(child);
+            }
+        }
+        return recyclerView.getChildLayoutPosition(recyclerView.getChildAt(index));
+    }
+
+    /**
+     * @return the span at the position across the rows.
+     */
+    static int getSpan(DragItemRecyclerView recyclerView, int spanCount, float position, boolean vertical) {
+        int start = vertical ? recyclerView.getPaddingLeft() : recyclerView.getPaddingTop();
+        int size = vertical ? recyclerView.getWidth() - start - recyclerView.getPaddingRight()
+                : recyclerView.getHeight() - start - recyclerView.getPaddingBottom();
+        if (size <= 0) {
+            return 0;
+        }
+        int span = (int) ((position - start) * spanCount / size);
+        return Math.max(0, Math.min(span, spanCount - 1));
+    }
+}
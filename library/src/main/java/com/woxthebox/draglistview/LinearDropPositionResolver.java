@@ -0,0 +1,55 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import android.view.View;
+import android.view.ViewGroup.MarginLayoutParams;
+
+import static androidx.recyclerview.widget.RecyclerView.NO_POSITION;
+
+/**
+ * Resolves the drop position for a {@link androidx.recyclerview.widget.LinearLayoutManager}. The child under the drag
+ * is found with a binary search over the children, and an item that is bigger than the dragged item is only passed
+ * when the drag passes its center, otherwise the bigger item would move back again when dragging slowly over it.
+ */
+public class LinearDropPositionResolver implements DropPositionResolver {
+
+    @Override
+    public int findDropPosition(DragItemRecyclerView recyclerView, float x, float y, int dragPosition) {
+        View view = recyclerView.findChildView(x, y);
+        if (view == null) {
+            return NO_POSITION;
+        }
+        int pos = recyclerView.getChildLayoutPosition(view);
+        if (pos == NO_POSITION || pos == dragPosition) {
+            return pos;
+        }
+
+        boolean vertical = recyclerView.isVerticalLayout();
+        MarginLayoutParams params = (MarginLayoutParams) view.getLayoutParams();
+        int viewStart = vertical ? view.getTop() - params.topMargin : view.getLeft() - params.leftMargin;
+        int viewSize = vertical ? view.getMeasuredHeight() + params.topMargin + params.bottomMargin
+                : view.getMeasuredWidth() + params.leftMargin + params.rightMargin;
+        float dragPos = vertical ? y : x;
+        int viewCenter = viewStart + viewSize / 2;
+        boolean movedPassedCenter = pos > dragPosition ? dragPos > viewCenter : dragPos < viewCenter;
+        if (viewSize > recyclerView.getDragItemSize() && !movedPassedCenter) {
+            return dragPosition;
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+/**
+ * A {@link DragItemAdapter} that stores the item ids in a primitive long array parallel to the items. The id of an item
+ * is only read once when it is added, after that it is moved in lockstep with the item. This makes {@link #getItemId},
+ * {@link #getPositionForItemId} and drop target lookups allocation free.
+ * <p/>
+ * With a {@link TreeItemList} the ids are read from the items instead, since keeping the array in lockstep would shift it
+ * on every insert and remove and undo the O(log n) of the list.
+ * <p/>
+ * If {@link #mItemList} is modified directly instead of through the adapter methods, then
+ * {@link #invalidateItemPositions()} must be called so the ids are read again.
+ */
+public abstract class LongIdDragItemAdapter<T, VH extends DragItemAdapter.ViewHolder> extends DragItemAdapter<T, VH> {
+
+    private long[] mItemIds = new long[0];
+    private int mItemIdCount = -1;
+
+    /**
+     * @return a unique id for the item. This is only called when the item is added to the adapter.
+     */
+    public abstract long getUniqueIdForItem(T item);
+
+    @Override
+    public final long getUniqueItemId(int position) {
+        if (mItemList instanceof TreeItemList) {
+            return getUniqueIdForItem(mItemList.get(position));
+        }
+        if (mItemIdCount != getItemCount()) {
+            rebuildItemIds();
+        }
+        return mItemIds[position];
+    }
+
+    @Override
+    void onItemListChanged() {
+        mItemIdCount = -1;
+    }
+
+    @Override
+    void onItemInserted(int pos) {
+        if (mItemIdCount < 0) {
+            return;
+        }
+        if (mItemIdCount == mItemIds.length) {
+            long[] itemIds = new long[Math.max(16, mItemIds.length * 2)];
+            System.arraycopy(mItemIds, 0, itemIds, 0, mItemIdCount);
+            mItemIds = itemIds;
+        }
+        System.arraycopy(mItemIds, pos, mItemIds, pos + 1, mItemIdCount - pos);
+        mItemIds[pos] = getUniqueIdForItem(mItemList.get(pos));
+        mItemIdCount++;
+    }
+
+    @Override
+    void onItemRemoved(int pos) {
+        if (mItemIdCount < 0) {
+            return;
+        }
+        System.arraycopy(mItemIds, pos + 1, mItemIds, pos, mItemIdCount - pos - 1);
+        mItemIdCount--;
+    }
+
+    @Override
+    void onItemMoved(int fromPos, int toPos) {
+        if (mItemIdCount < 0) {
+            return;
+        }
+        long itemId = mItemIds[fromPos];
+        if (fromPos < toPos) {
+            System.arraycopy(mItemIds, fromPos + 1, mItemIds, fromPos, toPos - fromPos);
+        } else {
+            System.arraycopy(mItemIds, toPos, mItemIds, toPos + 1, fromPos - toPos);
+        }
+        mItemIds[toPos] = itemId;
+    }
+
+    @Override
+    void onItemsSwapped(int pos1, int pos2) {
+        if (mItemIdCount < 0) {
+            return;
+        }
+        long itemId = mItemIds[pos1];
+        mItemIds[pos1] = mItemIds[pos2];
+        mItemIds[pos2] = itemId;
+    }
+
+    private void rebuildItemIds() {
+        int count = getItemCount();
+        if (mItemIds.length < count) {
+            mItemIds = new long[count];
+        }
+        for (int i = 0; i < count; i++) {
+            mItemIds[i] = getUniqueIdForItem(mItemList.get(i));
+        }
+        mItemIdCount = count;
+    }
+}
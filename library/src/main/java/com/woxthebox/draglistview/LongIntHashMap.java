@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from long keys to non negative int values. Used for the item id to position index so
+ * lookups don't need to box the keys.
+ */
+class LongIntHashMap {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] mKeys = new long[INITIAL_CAPACITY];
+    // Value + 1 is stored so that 0 can be used to mark a free slot
+    private int[] mValues = new int[INITIAL_CAPACITY];
+    private int mSize;
+
+    int size() {
+        return mSize;
+    }
+
+    int get(long key, int defaultValue) {
+        int mask = mKeys.length - 1;
+        for (int i = hash(key) & mask; mValues[i] != 0; i = (i + 1) & mask) {
+            if (mKeys[i] == key) {
+                return mValues[i] - 1;
+            }
+        }
+        return defaultValue;
+    }
+
+    void put(long key, int value) {
+        int mask = mKeys.length - 1;
+        int i = hash(key) & mask;
+        for (; mValues[i] != 0; i = (i + 1) & mask) {
+            if (mKeys[i] == key) {
+                mValues[i] = value + 1;
+                return;
+            }
+        }
+
+        mKeys[i] = key;
+        mValues[i] = value + 1;
+        mSize++;
+        if (mSize * 2 > mKeys.length) {
+            resize(mKeys.length * 2);
+        }
+    }
+
+    void remove(long key) {
+        int mask = mKeys.length - 1;
+        int i = hash(key) & mask;
+        while (mValues[i] != 0 && mKeys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (mValues[i] == 0) {
+            return;
+        }
+
+        // Shift back the following entries of the probe sequence so that no tombstones are needed
+        int free = i;
+        for (int j = (i + 1) & mask; mValues[j] != 0; j = (j + 1) & mask) {
+            int home = hash(mKeys[j]) & mask;
+            if (((j - home) & mask) >= ((j - free) & mask)) {
+                mKeys[free] = mKeys[j];
+                mValues[free] = mValues[j];
+                free = j;
+            }
+        }
+        mValues[free] = 0;
+        mSize--;
+    }
+
+    void clear() {
+        if (mSize > 0) {
+            Arrays.fill(mValues, 0);
+            mSize = 0;
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = mKeys;
+        int[] oldValues = mValues;
+        mKeys = new long[capacity];
+        mValues = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                int j = hash(oldKeys[i]) & mask;
+                while (mValues[j] != 0) {
+                    j = (j + 1) & mask;
+                }
+                mKeys[j] = oldKeys[i];
+                mValues[j] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list on top of a {@link RowSource}, like a database cursor, that is never modified. Changes to the list are kept
+ * in an overlay of runs of source rows and runs of added items, so reordering doesn't read or copy any rows and the
+ * memory used depends on the number of changes and not on the number of rows. Rows are read from the source when they
+ * are requested with {@link #get}.
+ * <p/>
+ * Removing a row and then adding the same item back, which is how {@link DragItemAdapter#changeItemPosition} moves an
+ * item, moves the source row. Use {@link #getSourcePosition} to find out where the rows have been moved when the new
+ * order is persisted.
+ */
+public class OverlayItemList<T> extends AbstractList<T> {
+
+    public interface RowSource<T> {
+        int getCount();
+
+        T getRow(int position);
+    }
+
+    private static class Segment<T> {
+        // Null for a run of source rows
+        ArrayList<T> items;
+        int sourceStart;
+        int sourceCount;
+
+        int size() {
+            return items != null ? items.size() : sourceCount;
+        }
+    }
+
+    private final RowSource<T> mRowSource;
+    private final ArrayList<Segment<T>> mSegments = new ArrayList<>();
+    private int mSize;
+    // The last located segment, most lookups are done for positions next to each other
+    private int mLocatedSegment;
+    private int mLocatedSegmentStart;
+    // The last removed row, so it is moved instead of added as an item if it is added back
+    private T mRemovedItem;
+    private int mRemovedSourcePosition = -1;
+
+    public OverlayItemList(RowSource<T> rowSource) {
+        mRowSource = rowSource;
+        mSize = rowSource.getCount();
+        if (mSize > 0) {
+            mSegments.add(createSourceSegment(0, mSize));
+        }
+    }
+
+    public RowSource<T> getRowSource() {
+        return mRowSource;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public T get(int index) {
+        Segment<T> segment = mSegments.get(locate(index));
+        int offset = index - mLocatedSegmentStart;
+        return segment.items != null ? segment.items.get(offset) : mRowSource.getRow(segment.sourceStart + offset);
+    }
+
+    /**
+     * @return the position of the item in the {@link RowSource} or -1 if the item has been added to the list.
+     */
+    public int getSourcePosition(int index) {
+        Segment<T> segment = mSegments.get(locate(index));
+        return segment.items != null ? -1 : segment.sourceStart + index - mLocatedSegmentStart;
+    }
+
+    /**
+     * @return the indexes of the items that have been added to the list and are not rows of the {@link RowSource}, in
+     * order. Only the segments are walked, no rows are read.
+     */
+    public int[] getAddedIndexes() {
+        int addedCount = 0;
+        for (Segment<T> segment : mSegments) {
+            if (segment.items != null) {
+                addedCount += segment.items.size();
+            }
+        }
+
+        int[] indexes = new int[addedCount];
+        int i = 0;
+        int start = 0;
+        for (Segment<T> segment : mSegments) {
+            if (segment.items != null) {
+                for (int offset = 0; offset < segment.items.size(); offset++) {
+                    indexes[i++] = start + offset;
+                }
+            }
+            start += segment.size();
+        }
+        return indexes;
+    }
+
+    /**
+     * @return true if the list doesn't have the same rows in the same order as the {@link RowSource}.
+     */
+    public boolean isModified() {
+        if (mSegments.isEmpty()) {
+            return mRowSource.getCount() != 0;
+        }
+        Segment<T> segment = mSegments.get(0);
+        return mSegments.size() > 1 || segment.items != null || segment.sourceStart != 0
+                || segment.sourceCount != mRowSource.getCount();
+    }
+
+    @Override
+    public T set(int index, T item) {
+        T oldItem = get(index);
+        Segment<T> segment = mSegments.get(mLocatedSegment);
+        if (segment.items != null) {
+            segment.items.set(index - mLocatedSegmentStart, item);
+            return oldItem;
+        }
+
+        int segmentIndex = splitAt(index);
+        splitAt(index + 1);
+        mSegments.set(segmentIndex, createItemSegment(item));
+        merge(segmentIndex);
+        modCount++;
+        return oldItem;
+    }
+
+    @Override
+    public void add(int index, T item) {
+        if (index < 0 || index > mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+
+        Segment<T> added;
+        if (mRemovedSourcePosition != -1 && item == mRemovedItem) {
+            added = createSourceSegment(mRemovedSourcePosition, 1);
+        } else {
+            added = createItemSegment(item);
+        }
+        mRemovedItem = null;
+        mRemovedSourcePosition = -1;
+
+        int segmentIndex = splitAt(index);
+        mSegments.add(segmentIndex, added);
+        mSize++;
+        merge(segmentIndex);
+        modCount++;
+    }
+
+    @Override
+    public T remove(int index) {
+        T item = get(index);
+        int segmentIndex = mLocatedSegment;
+        Segment<T> segment = mSegments.get(segmentIndex);
+        int offset = index - mLocatedSegmentStart;
+        if (segment.items != null) {
+            segment.items.remove(offset);
+            mRemovedSourcePosition = -1;
+        } else {
+            mRemovedSourcePosition = segment.sourceStart + offset;
+            if (offset == 0) {
+                segment.sourceStart++;
+                segment.sourceCount--;
+            } else if (offset == segment.sourceCount - 1) {
+                segment.sourceCount--;
+            } else {
+                Segment<T> tail = createSourceSegment(mRemovedSourcePosition + 1, segment.sourceCount - offset - 1);
+                segment.sourceCount = offset;
+                mSegments.add(segmentIndex + 1, tail);
+            }
+        }
+        mRemovedItem = item;
+        mSize--;
+
+        if (segment.size() == 0) {
+            mSegments.remove(segmentIndex);
+            if (segmentIndex > 0) {
+                merge(segmentIndex - 1);
+            }
+        }
+        // Segment indexes may have changed so the located segment can't be trusted
+        mLocatedSegment = 0;
+        mLocatedSegmentStart = 0;
+        modCount++;
+        return item;
+    }
+
+    /**
+     * Swaps two items as two moves, so source rows keep their source positions instead of becoming added items like
+     * they would with {@link #set}.
+     */
+    public void swap(int index1, int index2) {
+        if (index1 == index2) {
+            return;
+        }
+        int first = Math.min(index1, index2);
+        int second = Math.max(index1, index2);
+        add(first, remove(second));
+        add(second, remove(first + 1));
+    }
+
+    /**
+     * @return the index of the segment that contains the position and sets mLocatedSegmentStart to its start.
+     */
+    private int locate(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+
+        int segmentIndex = mLocatedSegment;
+        int start = mLocatedSegmentStart;
+        if (segmentIndex >= mSegments.size() || index < start) {
+            segmentIndex = 0;
+            start = 0;
+        }
+        while (index >= start + mSegments.get(segmentIndex).size()) {
+            start += mSegments.get(segmentIndex).size();
+            segmentIndex++;
+        }
+        mLocatedSegment = segmentIndex;
+        mLocatedSegmentStart = start;
+        return segmentIndex;
+    }
+
+    /**
+     * Makes sure a segment starts at the position.
+     *
+     * @return the index of the segment that starts at the position, or the number of segments if it is the end.
+     */
+    private int splitAt(int index) {
+        if (index == mSize) {
+            return mSegments.size();
+        }
+
+        int segmentIndex = locate(index);
+        int offset = index - mLocatedSegmentStart;
+        if (offset == 0) {
+            return segmentIndex;
+        }
+
+        Segment<T> segment = mSegments.get(segmentIndex);
+        Segment<T> tail;
+        if (segment.items != null) {
+            List<T> tailItems = segment.items.subList(offset, segment.items.size());
+            tail = new Segment<>();
+            tail.items = new ArrayList<>(tailItems);
+            tailItems.clear();
+        } else {
+            tail = createSourceSegment(segment.sourceStart + offset, segment.sourceCount - offset);
+            segment.sourceCount = offset;
+        }
+        mSegments.add(segmentIndex + 1, tail);
+        return segmentIndex + 1;
+    }
+
+    /**
+     * Merges the segment with its neighbours if they are added items or continuous source rows.
+     */
+    private void merge(int segmentIndex) {
+        if (segmentIndex + 1 < mSegments.size()) {
+            mergeWithNext(segmentIndex);
+        }
+        if (segmentIndex > 0 && segmentIndex < mSegments.size()) {
+            mergeWithNext(segmentIndex - 1);
+        }
+        // Segment indexes have changed so the located segment can't be trusted
+        mLocatedSegment = 0;
+        mLocatedSegmentStart = 0;
+    }
+
+    private void mergeWithNext(int segmentIndex) {
+        Segment<T> segment = mSegments.get(segmentIndex);
+        Segment<T> next = mSegments.get(segmentIndex + 1);
+        if (segment.items != null && next.items != null) {
+            segment.items.addAll(next.items);
+            mSegments.remove(segmentIndex + 1);
+        } else if (segment.items == null && next.items == null
+                && segment.sourceStart + segment.sourceCount == next.sourceStart) {
+            segment.sourceCount += next.sourceCount;
+            mSegments.remove(segmentIndex + 1);
+        }
+    }
+
+    private static <T> Segment<T> createSourceSegment(int sourceStart, int sourceCount) {
+        Segment<T> segment = new Segment<>();
+        segment.sourceStart = sourceStart;
+        segment.sourceCount = sourceCount;
+        return segment;
+    }
+
+    private static <T> Segment<T> createItemSegment(T item) {
+        Segment<T> segment = new Segment<>();
+        segment.items = new ArrayList<>();
+        segment.items.add(item);
+        return segment;
+    }
+}
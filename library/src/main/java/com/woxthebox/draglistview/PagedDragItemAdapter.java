@@ -0,0 +1,229 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.CallSuper;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * A {@link DragItemAdapter} for columns that are too large to keep in memory. Only the item count is set up front with
+ * {@link #setItemCount}, and pages of items are requested from a {@link PageLoader} when placeholder rows are bound.
+ * Placeholder rows are bound with a null item, see {@link #isPlaceholder}.
+ * <p/>
+ * Items can be dragged and dropped anywhere, also among placeholders. Since the absolute position of a drop is
+ * meaningless when most of the column isn't loaded, use {@link #getItemIdBefore} and {@link #getItemIdAfter} with the
+ * drop position to report the move relative to the closest loaded items, or {@link #getSourceOffset} to report it
+ * relative to a placeholder next to it.
+ * <p/>
+ * Placeholders get ids from {@link #PLACEHOLDER_ID} and upwards by their source offset, so they keep their ids while
+ * items are added, removed and moved. Real item ids must not be in that range.
+ */
+public abstract class PagedDragItemAdapter<T, VH extends DragItemAdapter.ViewHolder> extends DragItemAdapter<T, VH> {
+
+    public interface PageLoader {
+        /**
+         * Called when a page of items is needed. Load the items and pass them to {@link #setPage}, it is fine to do that
+         * asynchronously as long as {@link #setPage} is called on the main thread. If the page can't be loaded, call
+         * {@link #failPage} so it is requested again the next time one of its placeholders is bound.
+         * <p/>
+         * The call is posted from the bind of a placeholder, so it is also fine to call {@link #setPage} directly from
+         * here.
+         *
+         * @param offset Offset of the first item in the page, in the list the column was created from with
+         *               {@link #setItemCount}. It is not affected by items that have been moved since then.
+         * @param count  Number of items in the page.
+         */
+        void onLoadPage(int offset, int count);
+    }
+
+    public static final long PLACEHOLDER_ID = Long.MIN_VALUE;
+
+    private final int mPageSize;
+    private final HashSet<Integer> mRequestedPages = new HashSet<>();
+    private PageLoader mPageLoader;
+    private Handler mMainHandler;
+
+    /**
+     * @param pageSize The number of items to request from the {@link PageLoader} at a time.
+     */
+    public PagedDragItemAdapter(int pageSize) {
+        mPageSize = pageSize;
+    }
+
+    /**
+     * @return a unique id for the item. Not called for placeholders.
+     */
+    public abstract long getUniqueIdForItem(T item);
+
+    public void setPageLoader(PageLoader pageLoader) {
+        mPageLoader = pageLoader;
+    }
+
+    /**
+     * Sets the total number of items in the column. All rows are placeholders until their page has been loaded.
+     */
+    public void setItemCount(int itemCount) {
+        mRequestedPages.clear();
+        setItemList(new PagedItemList<T>(itemCount));
+    }
+
+    /**
+     * Fills the placeholders that were created for the page with loaded items. The placeholders are found by their
+     * offset and not by their current position, so rows that have been moved since the page was requested are filled
+     * correctly. Items of the page that are already loaded, like an item that has been dragged elsewhere, are kept.
+     *
+     * @param offset The offset that was passed to {@link PageLoader#onLoadPage}.
+     */
+    public void setPage(int offset, List<T> items) {
+        if (!(mItemList instanceof PagedItemList)) {
+            throw new IllegalStateException("setItemCount must be called before setPage");
+        }
+        mRequestedPages.remove(offset / mPageSize);
+
+        long dragOffset = getDragItemId() - PLACEHOLDER_ID;
+        if (getDragItemId() != RecyclerView.NO_ID && dragOffset >= offset && dragOffset < offset + items.size()) {
+            // A dragged placeholder must keep its id until it is dropped, it is filled when its page is requested again
+            int dragIndex = (int) dragOffset - offset;
+            fillPage(offset, items.subList(0, dragIndex));
+            fillPage(offset + dragIndex + 1, items.subList(dragIndex + 1, items.size()));
+        } else {
+            fillPage(offset, items);
+        }
+    }
+
+    /**
+     * Forgets that the page has been requested, for when loading it has failed. The page is requested again the next
+     * time one of its placeholders is bound.
+     *
+     * @param offset The offset that was passed to {@link PageLoader#onLoadPage}.
+     */
+    public void failPage(int offset) {
+        mRequestedPages.remove(offset / mPageSize);
+    }
+
+    private void fillPage(int offset, List<T> items) {
+        List<int[]> ranges = ((PagedItemList<T>) mItemList).fillPlaceholders(offset, items);
+        for (int[] range : ranges) {
+            updateItemPositions(range[0], range[0] + range[1] - 1);
+            dispatchItemRangeChanged(range[0], range[1], null);
+        }
+    }
+
+    public boolean isPlaceholder(int position) {
+        return mItemList instanceof PagedItemList && !((PagedItemList<T>) mItemList).isLoaded(position);
+    }
+
+    /**
+     * @return the offset that the placeholder at the position was requested with in {@link PageLoader#onLoadPage}, or
+     * -1 if the item is loaded. Placeholders that were added after {@link #setItemCount} have offsets from the item count
+     * and upwards.
+     */
+    public int getSourceOffset(int position) {
+        return mItemList instanceof PagedItemList ? ((PagedItemList<T>) mItemList).getSourceOffset(position) : -1;
+    }
+
+    /**
+     * @return the id of the closest loaded item before the position, or {@link RecyclerView#NO_ID} if there is none.
+     */
+    public long getItemIdBefore(int position) {
+        if (position <= 0 || !(mItemList instanceof PagedItemList)) {
+            return RecyclerView.NO_ID;
+        }
+        int loadedPosition = ((PagedItemList<T>) mItemList).getLoadedIndexBefore(position - 1);
+        return loadedPosition != -1 ? getItemId(loadedPosition) : RecyclerView.NO_ID;
+    }
+
+    /**
+     * @return the id of the closest loaded item after the position, or {@link RecyclerView#NO_ID} if there is none.
+     */
+    public long getItemIdAfter(int position) {
+        if (position >= getItemCount() - 1 || !(mItemList instanceof PagedItemList)) {
+            return RecyclerView.NO_ID;
+        }
+        int loadedPosition = ((PagedItemList<T>) mItemList).getLoadedIndexAfter(position + 1);
+        return loadedPosition != -1 ? getItemId(loadedPosition) : RecyclerView.NO_ID;
+    }
+
+    @Override
+    public final long getUniqueItemId(int position) {
+        T item = mItemList.get(position);
+        return item != null ? getUniqueIdForItem(item) : PLACEHOLDER_ID + getSourceOffset(position);
+    }
+
+    @Override
+    void moveListItem(int fromPos, int toPos) {
+        if (mItemList instanceof PagedItemList) {
+            ((PagedItemList<T>) mItemList).move(fromPos, toPos);
+        } else {
+            super.moveListItem(fromPos, toPos);
+        }
+    }
+
+    @Override
+    void swapListItems(int pos1, int pos2) {
+        if (mItemList instanceof PagedItemList) {
+            ((PagedItemList<T>) mItemList).swap(pos1, pos2);
+        } else {
+            super.swapListItems(pos1, pos2);
+        }
+    }
+
+    @CallSuper
+    @Override
+    public void onBindViewHolder(@NonNull VH holder, int position) {
+        super.onBindViewHolder(holder, position);
+        if (isPlaceholder(position)) {
+            int sourceOffset = ((PagedItemList<T>) mItemList).getSourceOffset(position);
+            if (sourceOffset < ((PagedItemList<T>) mItemList).getSourceSize()) {
+                requestPage(sourceOffset / mPageSize);
+            }
+        }
+    }
+
+    private void requestPage(final int page) {
+        if (mPageLoader == null || !mRequestedPages.add(page)) {
+            return;
+        }
+
+        if (mMainHandler == null) {
+            mMainHandler = new Handler(Looper.getMainLooper());
+        }
+
+        // The request is made during a bind, where a loader that answers right away would change the adapter in the
+        // middle of a layout, so it is posted to after the layout
+        final List<T> itemList = mItemList;
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (mPageLoader == null || itemList != mItemList || !mRequestedPages.contains(page)) {
+                    // The item count has been set again or the page has failed meanwhile
+                    return;
+                }
+                int offset = page * mPageSize;
+                int sourceSize = ((PagedItemList<T>) mItemList).getSourceSize();
+                mPageLoader.onLoadPage(offset, Math.min(mPageSize, sourceSize - offset));
+            }
+        });
+    }
+}
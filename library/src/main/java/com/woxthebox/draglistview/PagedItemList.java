@@ -0,0 +1,365 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list of a known size where only some ranges of items are loaded. It is stored as runs of loaded items and runs of
+ * placeholders, so the memory used depends on the number of loaded items and not on the size of the list. Placeholders
+ * are returned as null, and adding or setting null adds or sets a placeholder.
+ * <p/>
+ * Every placeholder remembers its offset in the source the list was created for, so a page is filled into the rows that
+ * were created for it even if items have been moved around since then. Placeholders that are added later get offsets
+ * from {@link #getSourceSize()} and upwards, which are never filled.
+ */
+class PagedItemList<T> extends AbstractList<T> {
+
+    private static class Segment<T> {
+        // Null for a run of placeholders
+        ArrayList<T> items;
+        int placeholderCount;
+        // Source offset of the first placeholder, the placeholders in a run have consecutive offsets
+        int sourceOffset;
+
+        int size() {
+            return items != null ? items.size() : placeholderCount;
+        }
+    }
+
+    private final ArrayList<Segment<T>> mSegments = new ArrayList<>();
+    private int mSize;
+    private final int mSourceSize;
+    private int mNextSourceOffset;
+    // The last located segment, most lookups are done for positions next to each other
+    private int mLocatedSegment;
+    private int mLocatedSegmentStart;
+
+    PagedItemList(int size) {
+        if (size > 0) {
+            mSegments.add(createPlaceholders(0, size));
+        }
+        mSize = size;
+        mSourceSize = size;
+        mNextSourceOffset = size;
+    }
+
+    /**
+     * @return the size the list was created with, source offsets below it can be filled with {@link #fillPlaceholders}.
+     */
+    int getSourceSize() {
+        return mSourceSize;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public T get(int index) {
+        Segment<T> segment = mSegments.get(locate(index));
+        return segment.items != null ? segment.items.get(index - mLocatedSegmentStart) : null;
+    }
+
+    boolean isLoaded(int index) {
+        return mSegments.get(locate(index)).items != null;
+    }
+
+    /**
+     * @return the source offset of the placeholder at the index, or -1 if the item is loaded.
+     */
+    int getSourceOffset(int index) {
+        Segment<T> segment = mSegments.get(locate(index));
+        return segment.items == null ? segment.sourceOffset + index - mLocatedSegmentStart : -1;
+    }
+
+    @Override
+    public T set(int index, T item) {
+        Segment<T> segment = mSegments.get(locate(index));
+        if (segment.items != null && item != null) {
+            return segment.items.set(index - mLocatedSegmentStart, item);
+        }
+        if (segment.items == null && item == null) {
+            return null;
+        }
+
+        T oldItem = get(index);
+        replace(index, createSegment(item));
+        return oldItem;
+    }
+
+    @Override
+    public void add(int index, T item) {
+        if (index < 0 || index > mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+        int segmentIndex = splitAt(index);
+        mSegments.add(segmentIndex, createSegment(item));
+        mSize++;
+        merge(segmentIndex);
+        modCount++;
+    }
+
+    @Override
+    public T remove(int index) {
+        int segmentIndex = locate(index);
+        Segment<T> segment = mSegments.get(segmentIndex);
+        T item = null;
+        if (segment.items != null) {
+            item = segment.items.remove(index - mLocatedSegmentStart);
+        } else if (index == mLocatedSegmentStart) {
+            segment.sourceOffset++;
+            segment.placeholderCount--;
+        } else {
+            // Split the run so the placeholders after the index keep their source offsets
+            segmentIndex = splitAt(index);
+            segment = mSegments.get(segmentIndex);
+            segment.sourceOffset++;
+            segment.placeholderCount--;
+        }
+        mSize--;
+
+        if (segment.size() == 0) {
+            mSegments.remove(segmentIndex);
+            mLocatedSegment = 0;
+            mLocatedSegmentStart = 0;
+            if (segmentIndex > 0) {
+                merge(segmentIndex - 1);
+            }
+        }
+        modCount++;
+        return item;
+    }
+
+    /**
+     * Moves the item or placeholder at fromIndex to toIndex. Unlike removing and adding a placeholder, the moved
+     * placeholder keeps its source offset.
+     */
+    void move(int fromIndex, int toIndex) {
+        Segment<T> entry = copyEntry(fromIndex);
+        remove(fromIndex);
+        int segmentIndex = splitAt(toIndex);
+        mSegments.add(segmentIndex, entry);
+        mSize++;
+        merge(segmentIndex);
+        modCount++;
+    }
+
+    /**
+     * Swaps the items or placeholders at the indexes, the placeholders keep their source offsets.
+     */
+    void swap(int index1, int index2) {
+        Segment<T> entry1 = copyEntry(index1);
+        Segment<T> entry2 = copyEntry(index2);
+        replace(index1, entry2);
+        replace(index2, entry1);
+    }
+
+    /**
+     * @return the index of the closest loaded item at or before the index, or -1 if there is none.
+     */
+    int getLoadedIndexBefore(int index) {
+        int segmentIndex = locate(index);
+        int end = index;
+        int start = mLocatedSegmentStart;
+        while (mSegments.get(segmentIndex).items == null) {
+            if (segmentIndex == 0) {
+                return -1;
+            }
+            end = start - 1;
+            segmentIndex--;
+            start -= mSegments.get(segmentIndex).size();
+        }
+        return end;
+    }
+
+    /**
+     * @return the index of the closest loaded item at or after the index, or -1 if there is none.
+     */
+    int getLoadedIndexAfter(int index) {
+        int segmentIndex = locate(index);
+        int start = index;
+        int end = mLocatedSegmentStart + mSegments.get(segmentIndex).size();
+        while (mSegments.get(segmentIndex).items == null) {
+            if (segmentIndex == mSegments.size() - 1) {
+                return -1;
+            }
+            start = end;
+            segmentIndex++;
+            end += mSegments.get(segmentIndex).size();
+        }
+        return start;
+    }
+
+    /**
+     * Replaces the placeholders that were created for the source offsets from sourceOffset and forward with the items.
+     * Items from the range that are already loaded, like an item that has been dragged elsewhere, are not touched.
+     *
+     * @return the ranges of positions that were filled, as {position, count} pairs in ascending order.
+     */
+    List<int[]> fillPlaceholders(int sourceOffset, List<T> items) {
+        // Placeholders that were added later must not be filled by a page that is too long
+        int sourceEnd = Math.min(sourceOffset + items.size(), mSourceSize);
+        // Collect the ranges first, filling doesn't move any positions but it does merge segments
+        ArrayList<int[]> fills = new ArrayList<>();
+        int start = 0;
+        for (Segment<T> segment : mSegments) {
+            if (segment.items == null) {
+                int from = Math.max(segment.sourceOffset, sourceOffset);
+                int to = Math.min(segment.sourceOffset + segment.placeholderCount, sourceEnd);
+                if (from < to) {
+                    fills.add(new int[]{start + from - segment.sourceOffset, from - sourceOffset, to - from});
+                }
+            }
+            start += segment.size();
+        }
+
+        ArrayList<int[]> ranges = new ArrayList<>(fills.size());
+        for (int[] fill : fills) {
+            int position = fill[0];
+            int count = fill[2];
+            int segmentIndex = splitAt(position);
+            splitAt(position + count);
+            Segment<T> loaded = new Segment<>();
+            loaded.items = new ArrayList<>(items.subList(fill[1], fill[1] + count));
+            mSegments.set(segmentIndex, loaded);
+            merge(segmentIndex);
+            ranges.add(new int[]{position, count});
+        }
+        return ranges;
+    }
+
+    /**
+     * @return the index of the segment that contains the position and sets mLocatedSegmentStart to its start.
+     */
+    private int locate(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+
+        int segmentIndex = mLocatedSegment;
+        int start = mLocatedSegmentStart;
+        if (segmentIndex >= mSegments.size() || index < start) {
+            segmentIndex = 0;
+            start = 0;
+        }
+        while (index >= start + mSegments.get(segmentIndex).size()) {
+            start += mSegments.get(segmentIndex).size();
+            segmentIndex++;
+        }
+        mLocatedSegment = segmentIndex;
+        mLocatedSegmentStart = start;
+        return segmentIndex;
+    }
+
+    /**
+     * Makes sure a segment starts at the position.
+     *
+     * @return the index of the segment that starts at the position, or the number of segments if it is the end.
+     */
+    private int splitAt(int index) {
+        if (index == mSize) {
+            return mSegments.size();
+        }
+
+        int segmentIndex = locate(index);
+        int offset = index - mLocatedSegmentStart;
+        if (offset == 0) {
+            return segmentIndex;
+        }
+
+        Segment<T> segment = mSegments.get(segmentIndex);
+        Segment<T> tail = new Segment<>();
+        if (segment.items != null) {
+            List<T> tailItems = segment.items.subList(offset, segment.items.size());
+            tail.items = new ArrayList<>(tailItems);
+            tailItems.clear();
+        } else {
+            tail.placeholderCount = segment.placeholderCount - offset;
+            tail.sourceOffset = segment.sourceOffset + offset;
+            segment.placeholderCount = offset;
+        }
+        mSegments.add(segmentIndex + 1, tail);
+        return segmentIndex + 1;
+    }
+
+    private void replace(int index, Segment<T> entry) {
+        int segmentIndex = splitAt(index);
+        splitAt(index + 1);
+        mSegments.set(segmentIndex, entry);
+        merge(segmentIndex);
+    }
+
+    /**
+     * @return a segment with only the item or placeholder at the index.
+     */
+    private Segment<T> copyEntry(int index) {
+        Segment<T> segment = mSegments.get(locate(index));
+        if (segment.items == null) {
+            return createPlaceholders(segment.sourceOffset + index - mLocatedSegmentStart, 1);
+        }
+        return createSegment(segment.items.get(index - mLocatedSegmentStart));
+    }
+
+    /**
+     * Merges the segment with its neighbours if they are of the same kind.
+     */
+    private void merge(int segmentIndex) {
+        if (segmentIndex + 1 < mSegments.size()) {
+            mergeWithNext(segmentIndex);
+        }
+        if (segmentIndex > 0 && segmentIndex < mSegments.size()) {
+            mergeWithNext(segmentIndex - 1);
+        }
+        // Segment indexes have changed so the located segment can't be trusted
+        mLocatedSegment = 0;
+        mLocatedSegmentStart = 0;
+    }
+
+    private void mergeWithNext(int segmentIndex) {
+        Segment<T> segment = mSegments.get(segmentIndex);
+        Segment<T> next = mSegments.get(segmentIndex + 1);
+        if (segment.items != null && next.items != null) {
+            segment.items.addAll(next.items);
+            mSegments.remove(segmentIndex + 1);
+        } else if (segment.items == null && next.items == null
+                && segment.sourceOffset + segment.placeholderCount == next.sourceOffset) {
+            segment.placeholderCount += next.placeholderCount;
+            mSegments.remove(segmentIndex + 1);
+        }
+    }
+
+    private static <T> Segment<T> createPlaceholders(int sourceOffset, int count) {
+        Segment<T> segment = new Segment<>();
+        segment.placeholderCount = count;
+        segment.sourceOffset = sourceOffset;
+        return segment;
+    }
+
+    private Segment<T> createSegment(T item) {
+        if (item == null) {
+            return createPlaceholders(mNextSourceOffset++, 1);
+        }
+        Segment<T> segment = new Segment<>();
+        segment.items = new ArrayList<>();
+        segment.items.add(item);
+        return segment;
+    }
+}
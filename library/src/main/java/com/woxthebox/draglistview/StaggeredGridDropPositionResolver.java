@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import android.view.View;
+
+import androidx.recyclerview.widget.StaggeredGridLayoutManager;
+
+import static androidx.recyclerview.widget.RecyclerView.NO_POSITION;
+
+/**
+ * Resolves the drop position for a {@link StaggeredGridLayoutManager}. The children are split into their spans when the
+ * list has moved, and the drop position is then found with a binary search in the span under the drag. Full span items
+ * are part of every span. A drag past the last item of a short span drops at that item.
+ */
+public class StaggeredGridDropPositionResolver implements DropPositionResolver {
+
+    private DragItemRecyclerView mRecyclerView;
+    private int mChildBoundsVersion;
+    // Start of the children in each span, with margins and sorted, and their layout positions
+    private int[][] mSpanStarts = new int[0][];
+    private int[][] mSpanPositions = new int[0][];
+    private int[] mSpanSizes = new int[0];
+
+    @Override
+    public int findDropPosition(DragItemRecyclerView recyclerView, float x, float y, int dragPosition) {
+        StaggeredGridLayoutManager layoutManager = (StaggeredGridLayoutManager) recyclerView.getLayoutManager();
+        boolean vertical = layoutManager.getOrientation() == StaggeredGridLayoutManager.VERTICAL;
+        int spanCount = layoutManager.getSpanCount();
+        if (recyclerView != mRecyclerView || recyclerView.getChildBoundsVersion() != mChildBoundsVersion
+                || spanCount != mSpanSizes.length) {
+            updateSpans(recyclerView, spanCount, vertical);
+        }
+
+        int span = GridDropPositionResolver.getSpan(recyclerView, spanCount, vertical ? x : y, vertical);
+        int size = mSpanSizes[span];
+        if (size == 0) {
+            return NO_POSITION;
+        }
+
+        // Find the last child in the span that starts before the drag, above the first child the first one is used
+        int[] starts = mSpanStarts[span];
+        float value = vertical ? y : x;
+        int low = 0;
+        int high = size - 1;
+        int index = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= value) {
+                index = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return mSpanPositions[span][index];
+    }
+
+    private void updateSpans(DragItemRecyclerView recyclerView, int spanCount, boolean vertical) {
+        int childCount = recyclerView.getChildCount();
+        if (mSpanSizes.length != spanCount || (spanCount > 0 && mSpanStarts[0].length < childCount)) {
+            mSpanStarts = new int[spanCount][childCount];
+            mSpanPositions = new int[spanCount][childCount];
+            mSpanSizes = new int[spanCount];
+        }
+        for (int span = 0; span < spanCount; span++) {
+            mSpanSizes[span] = 0;
+        }
+
+        for (int i = 0; i < childCount; i++) {
+            View child = recyclerView.getChildAt(i);
+            int pos = recyclerView.getChildLayoutPosition(child);
+            StaggeredGridLayoutManager.LayoutParams params = (StaggeredGridLayoutManager.LayoutParams) child.getLayoutParams();
+            if (pos == NO_POSITION) {
+                continue;
+            }
+            int start = vertical ? child.getTop() - params.topMargin : child.getLeft() - params.leftMargin;
+            if (params.isFullSpan()) {
+                for (int span = 0; span < spanCount; span++) {
+                    addToSpan(span, start, pos);
+                }
+            } else if (params.getSpanIndex() >= 0 && params.getSpanIndex() < spanCount) {
+                addToSpan(params.getSpanIndex(), start, pos);
+            }
+        }
+        mRecyclerView = recyclerView;
+        mChildBoundsVersion = recyclerView.getChildBoundsVersion();
+    }
+
+    private void addToSpan(int span, int start, int pos) {
+        int[] starts = mSpanStarts[span];
+        int[] positions = mSpanPositions[span];
+        // Children are in layout order so this is normally an append, a reversed layout inserts at the front
+        int i = mSpanSizes[span];
+        while (i > 0 && starts[i - 1] > start) {
+            starts[i] = starts[i - 1];
+            positions[i] = positions[i - 1];
+            i--;
+        }
+        starts[i] = start;
+        positions[i] = pos;
+        mSpanSizes[span]++;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import android.view.MotionEvent;
+
+/**
+ * Predicts where a touch will be a short time ahead from the recent touch samples, including the historical samples of
+ * each {@link MotionEvent}. The velocity and acceleration are taken from the samples in the last
+ * {@link #SAMPLE_WINDOW} ms and the touch is extrapolated from the newest sample. Only used to draw the drag item closer
+ * to the finger, the real touch position still decides where the item is dropped.
+ */
+class TouchPredictor {
+    // If no touch samples come for this long the finger has stopped and nothing should be predicted
+    static final long STALE_TIME = 40;
+    private static final int SAMPLE_COUNT = 8;
+    private static final long SAMPLE_WINDOW = 60;
+
+    private final long[] mTimes = new long[SAMPLE_COUNT];
+    private final float[] mXs = new float[SAMPLE_COUNT];
+    private final float[] mYs = new float[SAMPLE_COUNT];
+    private int mSampleCount;
+    private int mNewest = -1;
+    private long mPredictionTime;
+    private float mPredictedDx;
+    private float mPredictedDy;
+
+    /**
+     * @param predictionTime How far ahead in ms to predict, 0 to not predict.
+     */
+    void setPredictionTime(long predictionTime) {
+        mPredictionTime = Math.max(0, predictionTime);
+    }
+
+    boolean isEnabled() {
+        return mPredictionTime > 0;
+    }
+
+    void reset() {
+        mSampleCount = 0;
+        mNewest = -1;
+        mPredictedDx = 0;
+        mPredictedDy = 0;
+    }
+
+    void addMotionEvent(MotionEvent event) {
+        for (int i = 0; i < event.getHistorySize(); i++) {
+            addSample(event.getHistoricalEventTime(i), event.getHistoricalX(i), event.getHistoricalY(i));
+        }
+        addSample(event.getEventTime(), event.getX(), event.getY());
+    }
+
+    void addSample(long time, float x, float y) {
+        if (mNewest != -1 && time <= mTimes[mNewest]) {
+            // Samples with the same time don't tell anything about the velocity, just use the latest position
+            mXs[mNewest] = x;
+            mYs[mNewest] = y;
+            return;
+        }
+        mNewest = (mNewest + 1) % SAMPLE_COUNT;
+        mTimes[mNewest] = time;
+        mXs[mNewest] = x;
+        mYs[mNewest] = y;
+        mSampleCount = Math.min(mSampleCount + 1, SAMPLE_COUNT);
+    }
+
+    /**
+     * Updates the predicted offsets from the samples added so far.
+     */
+    void predict() {
+        mPredictedDx = 0;
+        mPredictedDy = 0;
+        if (mPredictionTime <= 0 || mSampleCount < 2) {
+            return;
+        }
+
+        // Oldest sample in the window, and the sample closest to the middle of it
+        long newestTime = mTimes[mNewest];
+        int oldest = mNewest;
+        for (int i = 1; i < mSampleCount && newestTime - mTimes[getIndex(i)] <= SAMPLE_WINDOW; i++) {
+            oldest = getIndex(i);
+        }
+        if (oldest == mNewest) {
+            return;
+        }
+        int middle = -1;
+        long middleTime = (newestTime + mTimes[oldest]) / 2;
+        for (int i = 1; getIndex(i) != oldest; i++) {
+            int index = getIndex(i);
+            if (middle == -1 || Math.abs(mTimes[index] - middleTime) < Math.abs(mTimes[middle] - middleTime)) {
+                middle = index;
+            }
+        }
+
+        mPredictedDx = predictAxis(mXs, oldest, middle);
+        mPredictedDy = predictAxis(mYs, oldest, middle);
+    }
+
+    float getPredictedDx() {
+        return mPredictedDx;
+    }
+
+    float getPredictedDy() {
+        return mPredictedDy;
+    }
+
+    private float predictAxis(float[] values, int oldest, int middle) {
+        float t = mPredictionTime;
+        long time0 = mTimes[oldest];
+        long time2 = mTimes[mNewest];
+        if (middle == -1) {
+            return (values[mNewest] - values[oldest]) / (time2 - time0) * t;
+        }
+
+        long time1 = mTimes[middle];
+        float velocity1 = (values[middle] - values[oldest]) / (time1 - time0);
+        float velocity2 = (values[mNewest] - values[middle]) / (time2 - time1);
+        float acceleration = (velocity2 - velocity1) / ((time2 - time0) / 2f);
+        float velocity = velocity2 + acceleration * (time2 - time1) / 2f;
+        float offset = velocity * t + 0.5f * acceleration * t * t;
+
+        // A deceleration only predicts that the finger stops, not that it turns around
+        if (offset * velocity2 <= 0) {
+            return 0;
+        }
+        // Noisy samples can give a large acceleration, don't predict more than twice the latest velocity distance
+        float limit = Math.abs(velocity2 * t) * 2;
+        return Math.max(-limit, Math.min(offset, limit));
+    }
+
+    /**
+     * @return the index of the sample that is the given number of samples older than the newest one.
+     */
+    private int getIndex(int age) {
+        return (mNewest - age + SAMPLE_COUNT) % SAMPLE_COUNT;
+    }
+}
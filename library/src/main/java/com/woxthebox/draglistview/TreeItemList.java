@@ -0,0 +1,523 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * A list backed by a balanced tree with positional indexing. Getting, setting, adding and removing an item at a
+ * position are all done in O(log n). Use it as item list for a {@link DragItemAdapter} with very large columns,
+ * where moving an item in an {@link java.util.ArrayList} would shift the whole backing array.
+ * <p/>
+ * A {@link #snapshot()} of the list is taken in constant time. The snapshot and the list share all nodes, and a node
+ * that is shared is copied instead of modified when either of them is changed, so a change only costs O(log n) extra
+ * memory. Since shared nodes are never modified, a snapshot can be read on another thread while the list is changed on
+ * the main thread.
+ * <p/>
+ * Iterating over the list is done in O(n). The list can also hand out keys for its items with {@link #keyAt(int)} that
+ * follow the items when other items are added or removed, and the position of a key is found in O(log n). A
+ * {@link DragItemAdapter} uses them for its item id index, so adding and removing items doesn't need to update the
+ * index for all items after it.
+ */
+public class TreeItemList<T> extends AbstractList<T> {
+
+    private static class Node<T> {
+        // The list that is allowed to modify the node, nodes shared with a snapshot are owned by neither of the lists
+        final Object owner;
+        T item;
+        int priority;
+        int size = 1;
+        Node<T> left;
+        Node<T> right;
+        // Only kept up to date by the list that tracks keys, nodes shared with a snapshot may have a stale parent
+        Node<T> parent;
+        // The key table the key belongs to, see keyAt
+        Object keyOwner;
+        int key;
+
+        Node(Object owner, T item, int priority) {
+            this.owner = owner;
+            this.item = item;
+            this.priority = priority;
+        }
+    }
+
+    private final Random mRandom = new Random();
+    private Object mOwner = new Object();
+    private Node<T> mRoot;
+    // Results of the last split, kept in fields to not allocate on every split
+    private Node<T> mSplitLeft;
+    private Node<T> mSplitRight;
+    // Counts calls to set, which don't change modCount but can replace nodes that an iterator holds
+    private int mSetCount;
+
+    // Shared with all snapshots and holds the one of them that keeps parents and keys up to date. Parents are stored in
+    // the nodes, so only one of the lists sharing them can keep them right.
+    private Object[] mKeyTracker = new Object[1];
+    private Object mKeyOwner = new Object();
+    private Node<T>[] mKeyNodes = newNodeArray(0);
+    private int mKeyCount;
+    private int[] mFreeKeys = new int[0];
+    private int mFreeKeyCount;
+
+    public TreeItemList() {
+    }
+
+    public TreeItemList(Collection<? extends T> items) {
+        Object[] array = items.toArray();
+        mRoot = build(array, 0, array.length);
+    }
+
+    @Override
+    public int size() {
+        return size(mRoot);
+    }
+
+    @Override
+    public T get(int index) {
+        return findNode(index).item;
+    }
+
+    @Override
+    public T set(int index, T item) {
+        checkIndex(index);
+        // Copy the nodes on the path to the item that are shared with a snapshot
+        Node<T> node = mRoot = editable(mRoot);
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node.left = editable(node.left);
+                setParent(node.left, node);
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node.right = editable(node.right);
+                setParent(node.right, node);
+                node = node.right;
+            } else {
+                break;
+            }
+        }
+        T oldItem = node.item;
+        node.item = item;
+        mSetCount++;
+        return oldItem;
+    }
+
+    @Override
+    public void add(int index, T item) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        split(mRoot, index);
+        Node<T> right = mSplitRight;
+        mRoot = merge(merge(mSplitLeft, new Node<>(mOwner, item, mRandom.nextInt())), right);
+        setParent(mRoot, null);
+        mSplitLeft = null;
+        mSplitRight = null;
+        modCount++;
+    }
+
+    @Override
+    public T remove(int index) {
+        checkIndex(index);
+        split(mRoot, index);
+        Node<T> left = mSplitLeft;
+        split(mSplitRight, 1);
+        Node<T> removed = mSplitLeft;
+        mRoot = merge(left, mSplitRight);
+        setParent(mRoot, null);
+        mSplitLeft = null;
+        mSplitRight = null;
+        releaseKey(removed);
+        modCount++;
+        return removed.item;
+    }
+
+    /**
+     * Moves the item at fromIndex to toIndex in O(log n). Unlike removing and adding the item, the item keeps its key.
+     */
+    public void move(int fromIndex, int toIndex) {
+        checkIndex(fromIndex);
+        checkIndex(toIndex);
+        split(mRoot, fromIndex);
+        Node<T> left = mSplitLeft;
+        split(mSplitRight, 1);
+        Node<T> moved = mSplitLeft;
+        split(merge(left, mSplitRight), toIndex);
+        Node<T> right = mSplitRight;
+        mRoot = merge(merge(mSplitLeft, moved), right);
+        setParent(mRoot, null);
+        mSplitLeft = null;
+        mSplitRight = null;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        mRoot = null;
+        if (isTrackingKeys()) {
+            resetKeys();
+        }
+        modCount++;
+    }
+
+    /**
+     * Iterates over the items in order in O(n), instead of the O(n log n) of getting every index.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private Node<T>[] mStack = newNodeArray(32);
+            private int mStackSize;
+            private int mNextIndex;
+            private int mLastIndex = -1;
+            private int mExpectedModCount = modCount;
+            private int mExpectedSetCount = mSetCount;
+
+            {
+                seek(0);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return mNextIndex < size();
+            }
+
+            @Override
+            public T next() {
+                if (modCount != mExpectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (mSetCount != mExpectedSetCount) {
+                    // Set may have copied nodes on the stack, find the path to the next item again
+                    mExpectedSetCount = mSetCount;
+                    seek(mNextIndex);
+                }
+
+                Node<T> node = mStack[--mStackSize];
+                for (Node<T> child = node.right; child != null; child = child.left) {
+                    push(child);
+                }
+                mLastIndex = mNextIndex++;
+                return node.item;
+            }
+
+            @Override
+            public void remove() {
+                if (mLastIndex < 0) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != mExpectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                TreeItemList.this.remove(mLastIndex);
+                mNextIndex = mLastIndex;
+                mLastIndex = -1;
+                mExpectedModCount = modCount;
+                seek(mNextIndex);
+            }
+
+            /**
+             * Fills the stack with the nodes from the root to the item at the index where the path goes left, they are
+             * the nodes that come after the item in order.
+             */
+            private void seek(int index) {
+                mStackSize = 0;
+                Node<T> node = mRoot;
+                while (node != null) {
+                    int leftSize = size(node.left);
+                    if (index <= leftSize) {
+                        push(node);
+                        if (index == leftSize) {
+                            return;
+                        }
+                        node = node.left;
+                    } else {
+                        index -= leftSize + 1;
+                        node = node.right;
+                    }
+                }
+            }
+
+            private void push(Node<T> node) {
+                if (mStackSize == mStack.length) {
+                    mStack = Arrays.copyOf(mStack, mStackSize * 2);
+                }
+                mStack[mStackSize++] = node;
+            }
+        };
+    }
+
+    /**
+     * Returns a key for the item at the index that stays the same when other items are added, removed or moved, and
+     * when the item itself is moved with {@link #move}. The key is released when the item is removed. Use
+     * {@link #indexOfKey} to get the current index of the key.
+     * <p/>
+     * Only one of a list and its snapshots can hand out keys at a time. Calling this on another of them takes over and
+     * invalidates all keys handed out before, which costs O(n) once.
+     */
+    public int keyAt(int index) {
+        Node<T> node = findNode(index);
+        if (!isTrackingKeys()) {
+            mKeyTracker[0] = this;
+            resetKeys();
+            // The parents of shared nodes may have been set by the list that tracked keys before
+            setParents(mRoot);
+            setParent(mRoot, null);
+        }
+        if (hasKey(node)) {
+            return node.key;
+        }
+
+        int key = mFreeKeyCount > 0 ? mFreeKeys[--mFreeKeyCount] : mKeyCount++;
+        if (key == mKeyNodes.length) {
+            mKeyNodes = Arrays.copyOf(mKeyNodes, Math.max(16, key * 2));
+        }
+        mKeyNodes[key] = node;
+        node.keyOwner = mKeyOwner;
+        node.key = key;
+        return key;
+    }
+
+    /**
+     * @return the current index of a key from {@link #keyAt}, or -1 if the item has been removed or the key has been
+     * invalidated.
+     */
+    public int indexOfKey(int key) {
+        if (!isTrackingKeys() || key < 0 || key >= mKeyCount || mKeyNodes[key] == null) {
+            return -1;
+        }
+
+        Node<T> node = mKeyNodes[key];
+        int index = size(node.left);
+        while (node.parent != null) {
+            if (node == node.parent.right) {
+                index += size(node.parent.left) + 1;
+            }
+            node = node.parent;
+        }
+        return node == mRoot ? index : -1;
+    }
+
+    /**
+     * Takes a snapshot of the list in constant time. The snapshot is not affected by later changes to this list and this
+     * list is not affected by changes to the snapshot.
+     *
+     * @return a new list with the same items as this list.
+     */
+    public TreeItemList<T> snapshot() {
+        TreeItemList<T> snapshot = new TreeItemList<>();
+        snapshot.mRoot = mRoot;
+        snapshot.mKeyTracker = mKeyTracker;
+        // All current nodes are shared from now on, changing the owner makes this list copy them before modifying them
+        mOwner = new Object();
+        return snapshot;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+
+    private Node<T> findNode(int index) {
+        checkIndex(index);
+        Node<T> node = mRoot;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void updateSize(Node<?> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private boolean isTrackingKeys() {
+        return mKeyTracker[0] == this;
+    }
+
+    private boolean hasKey(Node<T> node) {
+        return node.keyOwner == mKeyOwner && mKeyNodes[node.key] == node;
+    }
+
+    private void releaseKey(Node<T> node) {
+        if (!isTrackingKeys() || !hasKey(node)) {
+            return;
+        }
+        mKeyNodes[node.key] = null;
+        if (mFreeKeyCount == mFreeKeys.length) {
+            mFreeKeys = Arrays.copyOf(mFreeKeys, Math.max(16, mFreeKeyCount * 2));
+        }
+        mFreeKeys[mFreeKeyCount++] = node.key;
+    }
+
+    private void resetKeys() {
+        // A new owner makes the keys stored in the nodes invalid without visiting them
+        mKeyOwner = new Object();
+        Arrays.fill(mKeyNodes, null);
+        mKeyCount = 0;
+        mFreeKeyCount = 0;
+    }
+
+    private void setParent(Node<T> node, Node<T> parent) {
+        if (node != null && isTrackingKeys()) {
+            node.parent = parent;
+        }
+    }
+
+    private void setParents(Node<T> node) {
+        if (node == null) {
+            return;
+        }
+        setParent(node.left, node);
+        setParent(node.right, node);
+        setParents(node.left);
+        setParents(node.right);
+    }
+
+    /**
+     * @return the node if it is owned by this list, otherwise a copy of it that is.
+     */
+    private Node<T> editable(Node<T> node) {
+        if (node == null || node.owner == mOwner) {
+            return node;
+        }
+        Node<T> copy = new Node<>(mOwner, node.item, node.priority);
+        copy.size = node.size;
+        copy.left = node.left;
+        copy.right = node.right;
+        if (isTrackingKeys()) {
+            copy.parent = node.parent;
+            setParent(copy.left, copy);
+            setParent(copy.right, copy);
+            if (hasKey(node)) {
+                // The key follows the item to the copy
+                copy.keyOwner = mKeyOwner;
+                copy.key = node.key;
+                mKeyNodes[node.key] = copy;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Splits the tree so that the first count items end up in mSplitLeft and the rest in mSplitRight.
+     */
+    private void split(Node<T> node, int count) {
+        if (node == null) {
+            mSplitLeft = null;
+            mSplitRight = null;
+            return;
+        }
+
+        node = editable(node);
+        int leftSize = size(node.left);
+        if (leftSize < count) {
+            split(node.right, count - leftSize - 1);
+            node.right = mSplitLeft;
+            setParent(node.right, node);
+            updateSize(node);
+            mSplitLeft = node;
+        } else {
+            split(node.left, count);
+            node.left = mSplitRight;
+            setParent(node.left, node);
+            updateSize(node);
+            mSplitRight = node;
+        }
+    }
+
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+
+        if (left.priority > right.priority) {
+            left = editable(left);
+            left.right = merge(left.right, right);
+            setParent(left.right, left);
+            updateSize(left);
+            return left;
+        } else {
+            right = editable(right);
+            right.left = merge(left, right.left);
+            setParent(right.left, right);
+            updateSize(right);
+            return right;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T>[] newNodeArray(int length) {
+        return (Node<T>[]) new Node[length];
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<T> build(Object[] items, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+
+        int mid = (from + to) >>> 1;
+        Node<T> node = new Node<>(mOwner, (T) items[mid], mRandom.nextInt());
+        node.left = build(items, from, mid);
+        node.right = build(items, mid + 1, to);
+        updateSize(node);
+
+        // The tree is already balanced, only the priorities need to be moved down to form a heap
+        Node<T> parent = node;
+        while (true) {
+            Node<T> child = parent.left;
+            if (parent.right != null && (child == null || parent.right.priority > child.priority)) {
+                child = parent.right;
+            }
+            if (child == null || child.priority <= parent.priority) {
+                break;
+            }
+            int priority = parent.priority;
+            parent.priority = child.priority;
+            child.priority = priority;
+            parent = child;
+        }
+        return node;
+    }
+}
@@ -23,6 +23,7 @@ import static junit.framework.Assert.assertNull;
 import static org.assertj.core.api.Java6Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -79,6 +80,21 @@ public class BoardViewTest {
         verify(boardListener).onItemChangedPosition(0, 0, 0, firstItemPosition);
     }
 
+    @Test
+    public void commitBatch_whenColumnAddedDuringBatch_onlyCommitsColumnsInBatch() {
+        subject.addColumn(adapter, mock(View.class), null, false);
+        DragItemAdapter addedAdapter = mock(DragItemAdapter.class);
+        when(addedAdapter.hasStableIds()).thenReturn(true);
+
+        subject.beginBatch();
+        subject.addColumn(addedAdapter, mock(View.class), null, false);
+        subject.commitBatch();
+
+        verify(adapter).beginBatch();
+        verify(adapter).commit();
+        verify(addedAdapter, never()).commit();
+    }
+
     private DragItemRecyclerView createColumnsAndDrag(DragItemAdapter adapter) {
         when(adapter.removeItem(anyInt())).thenReturn(mock(Object.class));
         DragItemRecyclerView column = subject.addColumn(adapter, null, null,false);
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.woxthebox.draglistview;
+
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+/**
+ * Compares {@link DragItemAdapter#getPositionForItem} with and without the identity index at 1k, 10k and 100k items.
+ * The time per lookup is printed so the numbers can be reproduced with {@code ./gradlew :library:testDebugUnitTest}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class DragItemAdapterBenchmarkTest {
+    private static final int LOOKUPS = 2000;
+    private static final int WARMUP_ROUNDS = 1;
+
+    @Test
+    public void getPositionForItem_withIdentityIndex_isFasterThanScan() {
+        for (int size : new int[]{1000, 10000, 100000}) {
+            List<Object> items = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                items.add(new Object());
+            }
+            int[] lookups = new int[LOOKUPS];
+            Random random = new Random(size);
+            for (int i = 0; i < LOOKUPS; i++) {
+                lookups[i] = random.nextInt(size);
+            }
+
+            TestAdapter adapter = new TestAdapter();
+            adapter.setItemList(items);
+            double scanNanos = measure(adapter, items, lookups);
+            adapter.setItemIdentityIndexEnabled(true);
+            double indexNanos = measure(adapter, items, lookups);
+
+            System.out.println(String.format("%d items: scan %.2f us, index %.2f us per lookup",
+                    size, scanNanos / 1000, indexNanos / 1000));
+            if (size == 100000) {
+                // The difference is orders of magnitude at this size, so it holds also on a noisy machine
+                assertThat(indexNanos).isLessThan(scanNanos);
+            }
+        }
+    }
+
+    /**
+     * @return the average time of a lookup in nanoseconds, after checking that every lookup finds the right position.
+     */
+    private static double measure(TestAdapter adapter, List<Object> items, int[] lookups) {
+        long elapsed = 0;
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int pos : lookups) {
+                if (adapter.getPositionForItem(items.get(pos)) != pos) {
+                    throw new AssertionError("Wrong position for item at " + pos);
+                }
+            }
+            elapsed = System.nanoTime() - start;
+        }
+        return (double) elapsed / lookups.length;
+    }
+
+    private static class TestAdapter extends DragItemAdapter<Object, DragItemAdapter.ViewHolder> {
+        @NonNull
+        @Override
+        public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getUniqueItemId(int position) {
+            return position;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class DragItemAdapterTest {
+    private TestAdapter subject;
+    private List<Runnable> diffTasks;
+
+    @Before
+    public void setUp() {
+        List<Long> items = new ArrayList<>();
+        for (long i = 0; i < 10; i++) {
+            items.add(i * 10);
+        }
+        subject = new TestAdapter();
+        subject.setItemList(items);
+    }
+
+    @After
+    public void tearDown() {
+        ShadowLooper.unPauseMainLooper();
+    }
+
+    @Test
+    public void getPositionForItemId_returnsPositionOfItem() {
+        assertThat(subject.getPositionForItemId(0)).isEqualTo(0);
+        assertThat(subject.getPositionForItemId(50)).isEqualTo(5);
+        assertThat(subject.getPositionForItemId(90)).isEqualTo(9);
+    }
+
+    @Test
+    public void getPositionForItemId_whenIdIsMissing_returnsNoPosition() {
+        assertThat(subject.getPositionForItemId(55)).isEqualTo(RecyclerView.NO_POSITION);
+    }
+
+    @Test
+    public void getPositionForItemId_afterAddAndRemove_returnsUpdatedPosition() {
+        subject.getPositionForItemId(0);
+
+        subject.addItem(2, 15L);
+        assertThat(subject.getPositionForItemId(15)).isEqualTo(2);
+        assertThat(subject.getPositionForItemId(20)).isEqualTo(3);
+
+        subject.removeItem(0);
+        assertThat(subject.getPositionForItemId(0)).isEqualTo(RecyclerView.NO_POSITION);
+        assertThat(subject.getPositionForItemId(15)).isEqualTo(1);
+        assertThat(subject.getPositionForItemId(90)).isEqualTo(9);
+    }
+
+    @Test
+    public void getPositionForItemId_afterChangeItemPosition_returnsUpdatedPosition() {
+        subject.getPositionForItemId(0);
+
+        subject.changeItemPosition(1, 7);
+        assertThat(subject.getPositionForItemId(10)).isEqualTo(7);
+        assertThat(subject.getPositionForItemId(20)).isEqualTo(1);
+        assertThat(subject.getPositionForItemId(70)).isEqualTo(6);
+
+        subject.swapItems(0, 9);
+        assertThat(subject.getPositionForItemId(0)).isEqualTo(9);
+        assertThat(subject.getPositionForItemId(90)).isEqualTo(0);
+    }
+
+    @Test
+    public void getPositionForItemId_whenListIsChangedDirectly_returnsUpdatedPosition() {
+        subject.getPositionForItemId(0);
+
+        subject.getItemList().remove(0);
+        assertThat(subject.getPositionForItemId(10)).isEqualTo(0);
+    }
+
+    @Test
+    public void getPositionForItem_withIdentityIndex_returnsUpdatedPosition() {
+        subject.setItemIdentityIndexEnabled(true);
+        Long item = subject.getItemList().get(4);
+        assertThat(subject.getPositionForItem(item)).isEqualTo(4);
+
+        subject.changeItemPosition(4, 0);
+        assertThat(subject.getPositionForItem(item)).isEqualTo(0);
+
+        Long newItem = 1000L;
+        subject.addItem(1, newItem);
+        assertThat(subject.getPositionForItem(newItem)).isEqualTo(1);
+
+        subject.removeItem(0);
+        assertThat(subject.getPositionForItem(item)).isEqualTo(RecyclerView.NO_POSITION);
+        assertThat(subject.getPositionForItem(newItem)).isEqualTo(0);
+    }
+
+    @Test
+    public void longIdAdapter_keepsIdsInLockstepWithItems() {
+        LongIdTestAdapter longIdAdapter = new LongIdTestAdapter();
+        longIdAdapter.setItemList(new ArrayList<>(subject.getItemList()));
+        longIdAdapter.getPositionForItemId(0);
+
+        longIdAdapter.changeItemPosition(0, 5);
+        longIdAdapter.addItem(2, 25L);
+        longIdAdapter.removeItem(9);
+        longIdAdapter.swapItems(0, 1);
+
+        List<Long> items = longIdAdapter.getItemList();
+        for (int i = 0; i < items.size(); i++) {
+            assertThat(longIdAdapter.getItemId(i)).isEqualTo(items.get(i));
+            assertThat(longIdAdapter.getPositionForItemId(items.get(i))).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void getPositionForItemId_withTreeItemList_followsAddRemoveAndMove() {
+        subject.setItemList(new TreeItemList<>(subject.getItemList()));
+        subject.getPositionForItemId(0);
+
+        subject.addItem(2, 15L);
+        subject.removeItem(0);
+        subject.changeItemPosition(0, 5);
+        subject.swapItems(1, 8);
+
+        List<Long> items = subject.getItemList();
+        assertThat(items).containsExactly(15L, 80L, 30L, 40L, 50L, 10L, 60L, 70L, 20L, 90L);
+        for (int i = 0; i < items.size(); i++) {
+            assertThat(subject.getPositionForItemId(items.get(i))).isEqualTo(i);
+        }
+        assertThat(subject.getPositionForItemId(0)).isEqualTo(RecyclerView.NO_POSITION);
+    }
+
+    @Test
+    public void commit_afterBatchOfChanges_dispatchesMergedNotifications() {
+        RecyclerView.AdapterDataObserver observer = mock(RecyclerView.AdapterDataObserver.class);
+        subject.registerAdapterDataObserver(observer);
+
+        subject.beginBatch();
+        for (int i = 0; i < 3; i++) {
+            subject.removeItem(2);
+        }
+        subject.addItem(0, 1L);
+        subject.addItem(1, 2L);
+        subject.setDragItemId(2L);
+
+        subject.commit();
+        InOrder inOrder = inOrder(observer);
+        inOrder.verify(observer).onItemRangeRemoved(2, 3);
+        inOrder.verify(observer).onItemRangeInserted(0, 2);
+        inOrder.verify(observer).onItemRangeChanged(1, 1, DragItemAdapter.PAYLOAD_DRAG_STATE);
+        verifyNoMoreInteractions(observer);
+    }
+
+    @Test
+    public void insertDragGroup_putsGroupBackAsOneBlockAtDropPosition() {
+        // Items 10 and 30 selected, 30 is dragged and dropped where it was after 10 was taken out
+        subject.setItemList(new ArrayList<>(Arrays.asList(0L, 20L, 30L, 40L)));
+        DragItemRecyclerView.DragGroup group = new DragItemRecyclerView.DragGroup(new int[]{1, 3},
+                Arrays.<Object>asList(10L), 1);
+
+        int[] positions = DragItemRecyclerView.insertDragGroup(subject, group, 2);
+        assertThat(subject.getItemList()).containsExactly(0L, 20L, 10L, 30L, 40L);
+        assertThat(positions).containsExactly(2, 3);
+        assertThat(subject.getItemList().get(positions[group.dragItemIndex])).isEqualTo(30L);
+    }
+
+    @Test
+    public void insertDragGroup_whenDroppedAtFirstPosition_insertsGroupAtStart() {
+        subject.setItemList(new ArrayList<>(Arrays.asList(30L, 0L, 20L, 40L)));
+        DragItemRecyclerView.DragGroup group = new DragItemRecyclerView.DragGroup(new int[]{1, 3},
+                Arrays.<Object>asList(10L), 1);
+
+        int[] positions = DragItemRecyclerView.insertDragGroup(subject, group, 0);
+        assertThat(subject.getItemList()).containsExactly(10L, 30L, 0L, 20L, 40L);
+        assertThat(positions).containsExactly(0, 1);
+    }
+
+    @Test
+    public void submitItemList_dispatchesGranularNotifications() {
+        enableDiffing();
+        RecyclerView.AdapterDataObserver observer = mock(RecyclerView.AdapterDataObserver.class);
+        subject.registerAdapterDataObserver(observer);
+
+        List<Long> itemList = Arrays.asList(0L, 10L, 30L, 40L, 50L, 60L, 70L, 80L, 90L, 95L);
+        subject.submitItemList(itemList);
+        runDiffTasks();
+
+        assertThat(subject.getItemList()).isEqualTo(itemList);
+        verify(observer).onItemRangeInserted(10, 1);
+        verify(observer).onItemRangeRemoved(2, 1);
+        verifyNoMoreInteractions(observer);
+    }
+
+    @Test
+    public void submitItemList_duringDrag_isDeferredUntilDragEnds() {
+        enableDiffing();
+        subject.setDragItemId(30L);
+
+        List<Long> itemList = Arrays.asList(30L, 0L, 10L);
+        subject.submitItemList(itemList);
+        runDiffTasks();
+        assertThat(subject.getItemList()).hasSize(10);
+
+        subject.setDragItemId(RecyclerView.NO_ID);
+        ShadowLooper.runUiThreadTasks();
+        runDiffTasks();
+
+        assertThat(subject.getItemList()).isEqualTo(itemList);
+    }
+
+    @Test
+    public void submitItemList_overtakenByNewerSubmit_dropsStaleResult() {
+        enableDiffing();
+
+        subject.submitItemList(Arrays.asList(0L, 10L));
+        List<Long> itemList = Arrays.asList(20L, 30L, 40L);
+        subject.submitItemList(itemList);
+        assertThat(diffTasks).hasSize(2);
+
+        diffTasks.remove(0).run();
+        ShadowLooper.runUiThreadTasks();
+        assertThat(subject.getItemList()).hasSize(10);
+
+        runDiffTasks();
+        assertThat(subject.getItemList()).isEqualTo(itemList);
+    }
+
+    private void enableDiffing() {
+        diffTasks = new ArrayList<>();
+        ShadowLooper.pauseMainLooper();
+        subject.setDiffConfig(new AsyncDifferConfig.Builder<>(new DiffUtil.ItemCallback<Long>() {
+            @Override
+            public boolean areItemsTheSame(@NonNull Long oldItem, @NonNull Long newItem) {
+                return oldItem.equals(newItem);
+            }
+
+            @Override
+            public boolean areContentsTheSame(@NonNull Long oldItem, @NonNull Long newItem) {
+                return oldItem.equals(newItem);
+            }
+        }).setBackgroundThreadExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                diffTasks.add(command);
+            }
+        }).build());
+    }
+
+    private void runDiffTasks() {
+        while (!diffTasks.isEmpty()) {
+            diffTasks.remove(0).run();
+        }
+        ShadowLooper.runUiThreadTasks();
+    }
+
+    private static class TestAdapter extends DragItemAdapter<Long, DragItemAdapter.ViewHolder> {
+        @NonNull
+        @Override
+        public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View view = new View(parent.getContext());
+            view.setId(1);
+            return new ViewHolder(view, 1, true) {
+            };
+        }
+
+        @Override
+        public long getUniqueItemId(int position) {
+            return mItemList.get(position);
+        }
+    }
+
+    private static class LongIdTestAdapter extends LongIdDragItemAdapter<Long, DragItemAdapter.ViewHolder> {
+        @NonNull
+        @Override
+        public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getUniqueIdForItem(Long item) {
+            return item;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.woxthebox.draglistview;
+
+import android.graphics.Canvas;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class DragItemRecyclerViewTest {
+    private DragItemRecyclerView subject;
+    private TestAdapter adapter;
+
+    @Before
+    public void setUp() {
+        List<Long> items = new ArrayList<>();
+        for (long i = 0; i < 20; i++) {
+            items.add(i);
+        }
+        adapter = new TestAdapter();
+        adapter.setItemList(items);
+
+        subject = new DragItemRecyclerView(RuntimeEnvironment.application);
+        subject.setLayoutManager(new LinearLayoutManager(RuntimeEnvironment.application));
+        subject.setHasFixedSize(true);
+        subject.setAdapter(adapter);
+        layout();
+    }
+
+    @Test
+    public void childBounds_drawnWithoutLayout_areReused() {
+        int version = subject.getChildBoundsVersion();
+
+        subject.draw(new Canvas());
+        subject.draw(new Canvas());
+
+        assertThat(subject.getChildBoundsVersion()).isEqualTo(version);
+    }
+
+    @Test
+    public void childBounds_afterLayout_areInvalidated() {
+        int version = subject.getChildBoundsVersion();
+
+        adapter.changeItemPosition(0, 3);
+        layout();
+        subject.draw(new Canvas());
+
+        assertThat(subject.getChildBoundsVersion()).isNotEqualTo(version);
+    }
+
+    @Test
+    public void dragLayoutPassCount_countsEveryLayoutPassDuringDrag() {
+        new FrameLayout(RuntimeEnvironment.application).addView(subject);
+        subject.setDragItem(new DragItem(RuntimeEnvironment.application));
+        subject.startDrag(subject.getChildAt(0), 0, 0, 0);
+        int passCount = subject.getDragLayoutPassCount();
+
+        adapter.changeItemPosition(5, 6);
+        layout();
+        adapter.changeItemPosition(6, 7);
+        layout();
+
+        assertThat(subject.getDragLayoutPassCount()).isEqualTo(passCount + 2);
+    }
+
+    @Test
+    public void dragLayoutPassCount_withoutDrag_isNotCounted() {
+        adapter.changeItemPosition(5, 6);
+        layout();
+
+        assertThat(subject.getDragLayoutPassCount()).isEqualTo(0);
+    }
+
+    private void layout() {
+        subject.measure(View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(500, View.MeasureSpec.EXACTLY));
+        subject.layout(0, 0, 100, 500);
+    }
+
+    private static class TestAdapter extends DragItemAdapter<Long, DragItemAdapter.ViewHolder> {
+        @NonNull
+        @Override
+        public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View view = new View(parent.getContext());
+            view.setId(1);
+            view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 50));
+            return new ViewHolder(view, 1, true) {
+            };
+        }
+
+        @Override
+        public long getUniqueItemId(int position) {
+            return mItemList.get(position);
+        }
+    }
+}
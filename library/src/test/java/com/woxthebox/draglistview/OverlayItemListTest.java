@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class OverlayItemListTest {
+
+    private static OverlayItemList<String> createList(final int count) {
+        return new OverlayItemList<>(new OverlayItemList.RowSource<String>() {
+            @Override
+            public int getCount() {
+                return count;
+            }
+
+            @Override
+            public String getRow(int position) {
+                return String.valueOf(position);
+            }
+        });
+    }
+
+    @Test
+    public void move_sourceRow_movesSourcePosition() {
+        OverlayItemList<String> subject = createList(5);
+
+        subject.add(3, subject.remove(0));
+
+        assertThat(subject).containsExactly("1", "2", "3", "0", "4");
+        assertThat(subject.getSourcePosition(3)).isEqualTo(0);
+        assertThat(subject.isModified()).isTrue();
+    }
+
+    @Test
+    public void move_backToSourcePosition_isNotModified() {
+        OverlayItemList<String> subject = createList(5);
+
+        subject.add(3, subject.remove(1));
+        subject.add(1, subject.remove(3));
+
+        assertThat(subject).containsExactly("0", "1", "2", "3", "4");
+        assertThat(subject.isModified()).isFalse();
+    }
+
+    @Test
+    public void add_newItem_hasNoSourcePosition() {
+        OverlayItemList<String> subject = createList(3);
+
+        subject.add(1, "a");
+        subject.remove(3);
+
+        assertThat(subject).containsExactly("0", "a", "1");
+        assertThat(subject.getSourcePosition(1)).isEqualTo(-1);
+        assertThat(subject.getSourcePosition(2)).isEqualTo(1);
+    }
+
+    @Test
+    public void swap_sourceRows_keepsSourcePositions() {
+        OverlayItemList<String> subject = createList(5);
+
+        subject.swap(3, 1);
+
+        assertThat(subject).containsExactly("0", "3", "2", "1", "4");
+        assertThat(subject.getSourcePosition(1)).isEqualTo(3);
+        assertThat(subject.getSourcePosition(3)).isEqualTo(1);
+        assertThat(subject.getAddedIndexes()).isEmpty();
+
+        subject.swap(1, 3);
+        assertThat(subject.isModified()).isFalse();
+    }
+
+    @Test
+    public void getAddedIndexes_returnsIndexesOfAddedItems() {
+        OverlayItemList<String> subject = createList(5);
+
+        subject.add(1, "a");
+        subject.add(5, "b");
+        subject.swap(0, 2);
+
+        assertThat(subject).containsExactly("1", "a", "0", "2", "3", "b", "4");
+        assertThat(subject.getAddedIndexes()).containsExactly(1, 5);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.woxthebox.draglistview;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class PagedDragItemAdapterTest {
+    private RecyclerView recyclerView;
+    private TestAdapter subject;
+    private List<Integer> requestedOffsets;
+
+    @Before
+    public void setUp() {
+        ShadowLooper.pauseMainLooper();
+        requestedOffsets = new ArrayList<>();
+        subject = new TestAdapter(10);
+        subject.setItemCount(100);
+
+        recyclerView = new RecyclerView(RuntimeEnvironment.application);
+        recyclerView.setLayoutManager(new LinearLayoutManager(RuntimeEnvironment.application));
+        recyclerView.setHasFixedSize(true);
+        recyclerView.setAdapter(subject);
+    }
+
+    @After
+    public void tearDown() {
+        ShadowLooper.unPauseMainLooper();
+    }
+
+    @Test
+    public void setPage_fromSynchronousLoader_isAppliedAfterLayout() {
+        subject.setPageLoader(new PagedDragItemAdapter.PageLoader() {
+            @Override
+            public void onLoadPage(int offset, int count) {
+                requestedOffsets.add(offset);
+                List<String> items = new ArrayList<>();
+                for (int i = offset; i < offset + count; i++) {
+                    items.add("item" + i);
+                }
+                subject.setPage(offset, items);
+            }
+        });
+
+        layout();
+        assertThat(requestedOffsets).isEmpty();
+        assertThat(subject.isPlaceholder(0)).isTrue();
+
+        ShadowLooper.runUiThreadTasks();
+        layout();
+
+        assertThat(requestedOffsets).containsExactly(0);
+        assertThat(subject.isPlaceholder(0)).isFalse();
+        assertThat(subject.getItemList().get(9)).isEqualTo("item9");
+        assertThat(subject.isPlaceholder(10)).isTrue();
+    }
+
+    @Test
+    public void failPage_requestsPageAgainOnNextBind() {
+        subject.setPageLoader(new PagedDragItemAdapter.PageLoader() {
+            @Override
+            public void onLoadPage(int offset, int count) {
+                requestedOffsets.add(offset);
+            }
+        });
+
+        layout();
+        ShadowLooper.runUiThreadTasks();
+        subject.notifyItemRangeChanged(0, 10);
+        layout();
+        ShadowLooper.runUiThreadTasks();
+        assertThat(requestedOffsets).containsExactly(0);
+
+        subject.failPage(0);
+        subject.notifyItemRangeChanged(0, 10);
+        layout();
+        ShadowLooper.runUiThreadTasks();
+
+        assertThat(requestedOffsets).containsExactly(0, 0);
+    }
+
+    private void layout() {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(500, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, 100, 500);
+    }
+
+    private static class TestAdapter extends PagedDragItemAdapter<String, DragItemAdapter.ViewHolder> {
+        TestAdapter(int pageSize) {
+            super(pageSize);
+        }
+
+        @NonNull
+        @Override
+        public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View view = new View(parent.getContext());
+            view.setId(1);
+            view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 50));
+            return new ViewHolder(view, 1, true) {
+            };
+        }
+
+        @Override
+        public long getUniqueIdForItem(String item) {
+            return item.hashCode();
+        }
+    }
+}
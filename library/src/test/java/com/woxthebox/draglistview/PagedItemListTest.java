@@ -0,0 +1,151 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class PagedItemListTest {
+
+    @Test
+    public void constructor_withSize_onlyHasPlaceholders() {
+        PagedItemList<String> subject = new PagedItemList<>(3);
+
+        assertThat(subject).containsExactly(null, null, null);
+        assertThat(subject.isLoaded(1)).isFalse();
+    }
+
+    @Test
+    public void fillPlaceholders_inRange_loadsItems() {
+        PagedItemList<String> subject = new PagedItemList<>(5);
+
+        List<int[]> ranges = subject.fillPlaceholders(1, Arrays.asList("a", "b"));
+
+        assertThat(ranges).hasSize(1);
+        assertThat(ranges.get(0)).containsExactly(1, 2);
+        assertThat(subject).containsExactly(null, "a", "b", null, null);
+        assertThat(subject.isLoaded(2)).isTrue();
+    }
+
+    @Test
+    public void fillPlaceholders_withDraggedItemInRange_skipsLoadedItem() {
+        PagedItemList<String> subject = new PagedItemList<>(5);
+        subject.fillPlaceholders(4, Arrays.asList("x"));
+        subject.add(1, subject.remove(4));
+
+        List<int[]> ranges = subject.fillPlaceholders(0, Arrays.asList("a", "b", "c"));
+
+        assertThat(ranges).hasSize(2);
+        assertThat(ranges.get(0)).containsExactly(0, 1);
+        assertThat(ranges.get(1)).containsExactly(2, 2);
+        assertThat(subject).containsExactly("a", "x", "b", "c", null);
+    }
+
+    @Test
+    public void fillPlaceholders_afterItemMovedOutOfPage_fillsBySourceOffset() {
+        PagedItemList<String> subject = new PagedItemList<>(1000);
+        subject.fillPlaceholders(0, page(0, 100));
+        subject.add(500, subject.remove(3));
+
+        // The row at 99 is now the first row of the second page
+        assertThat(subject.isLoaded(99)).isFalse();
+        assertThat(subject.getSourceOffset(99)).isEqualTo(100);
+
+        // Filling the first page again must not write duplicates into the moved rows
+        assertThat(subject.fillPlaceholders(0, page(0, 100))).isEmpty();
+        assertThat(subject.isLoaded(99)).isFalse();
+
+        subject.fillPlaceholders(100, page(100, 100));
+        assertThat(subject.get(98)).isEqualTo("S99");
+        assertThat(subject.get(99)).isEqualTo("S100");
+        assertThat(subject.get(500)).isEqualTo("S3");
+    }
+
+    @Test
+    public void add_placeholder_getsSourceOffsetOutsideOfSource() {
+        PagedItemList<String> subject = new PagedItemList<>(3);
+
+        subject.add(1, null);
+
+        assertThat(subject.getSourceOffset(0)).isEqualTo(0);
+        assertThat(subject.getSourceOffset(1)).isEqualTo(3);
+        assertThat(subject.getSourceOffset(2)).isEqualTo(1);
+        assertThat(subject.fillPlaceholders(0, Arrays.asList("a", "b", "c"))).hasSize(2);
+        assertThat(subject).containsExactly("a", null, "b", "c");
+    }
+
+    @Test
+    public void remove_placeholder_shrinksList() {
+        PagedItemList<String> subject = new PagedItemList<>(3);
+        subject.fillPlaceholders(0, Arrays.asList("a"));
+
+        subject.remove(1);
+
+        assertThat(subject).containsExactly("a", null);
+        assertThat(subject.getSourceOffset(1)).isEqualTo(2);
+    }
+
+    @Test
+    public void move_placeholder_keepsSourceOffset() {
+        PagedItemList<String> subject = new PagedItemList<>(5);
+        subject.fillPlaceholders(0, Arrays.asList("a"));
+
+        subject.move(3, 1);
+
+        assertThat(subject.getSourceOffset(1)).isEqualTo(3);
+        assertThat(subject.getSourceOffset(2)).isEqualTo(1);
+        subject.fillPlaceholders(3, Arrays.asList("d"));
+        assertThat(subject).containsExactly("a", "d", null, null, null);
+    }
+
+    @Test
+    public void swap_placeholderWithItem_keepsSourceOffset() {
+        PagedItemList<String> subject = new PagedItemList<>(3);
+        subject.fillPlaceholders(0, Arrays.asList("a"));
+
+        subject.swap(0, 2);
+
+        assertThat(subject).containsExactly(null, null, "a");
+        assertThat(subject.getSourceOffset(0)).isEqualTo(2);
+        assertThat(subject.getSourceOffset(1)).isEqualTo(1);
+    }
+
+    @Test
+    public void getLoadedIndex_betweenPlaceholders_returnsClosestLoadedItem() {
+        PagedItemList<String> subject = new PagedItemList<>(10);
+        subject.fillPlaceholders(2, Arrays.asList("c"));
+        subject.fillPlaceholders(7, Arrays.asList("h"));
+
+        assertThat(subject.getLoadedIndexBefore(5)).isEqualTo(2);
+        assertThat(subject.getLoadedIndexAfter(5)).isEqualTo(7);
+        assertThat(subject.getLoadedIndexBefore(1)).isEqualTo(-1);
+        assertThat(subject.getLoadedIndexAfter(8)).isEqualTo(-1);
+    }
+
+    private static List<String> page(int offset, int count) {
+        List<String> items = new ArrayList<>();
+        for (int i = offset; i < offset + count; i++) {
+            items.add("S" + i);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.within;
+
+public class TouchPredictorTest {
+
+    @Test
+    public void predict_constantVelocity_extrapolatesLinearly() {
+        TouchPredictor subject = new TouchPredictor();
+        subject.setPredictionTime(16);
+        for (int i = 0; i < 5; i++) {
+            subject.addSample(i * 8, i * 16, 100);
+        }
+
+        subject.predict();
+
+        assertThat(subject.getPredictedDx()).isCloseTo(32f, within(0.01f));
+        assertThat(subject.getPredictedDy()).isEqualTo(0f);
+    }
+
+    @Test
+    public void predict_decelerating_neverTurnsAround() {
+        TouchPredictor subject = new TouchPredictor();
+        subject.setPredictionTime(50);
+        subject.addSample(0, 0, 0);
+        subject.addSample(8, 40, 0);
+        subject.addSample(16, 42, 0);
+
+        subject.predict();
+
+        assertThat(subject.getPredictedDx()).isGreaterThanOrEqualTo(0f);
+    }
+
+    @Test
+    public void predict_disabled_predictsNothing() {
+        TouchPredictor subject = new TouchPredictor();
+        subject.addSample(0, 0, 0);
+        subject.addSample(8, 16, 16);
+
+        subject.predict();
+
+        assertThat(subject.getPredictedDx()).isEqualTo(0f);
+        assertThat(subject.getPredictedDy()).isEqualTo(0f);
+    }
+}
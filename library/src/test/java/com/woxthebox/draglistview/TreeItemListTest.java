@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014 Magnus Woxblom
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.woxthebox.draglistview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class TreeItemListTest {
+
+    @Test
+    public void constructor_withItems_keepsOrder() {
+        TreeItemList<String> subject = new TreeItemList<>(Arrays.asList("a", "b", "c", "d"));
+
+        assertThat(subject).containsExactly("a", "b", "c", "d");
+    }
+
+    @Test
+    public void addAndRemove_atPositions_updatesOrder() {
+        TreeItemList<String> subject = new TreeItemList<>();
+        subject.add("b");
+        subject.add(0, "a");
+        subject.add(2, "d");
+        subject.add(2, "c");
+
+        assertThat(subject).containsExactly("a", "b", "c", "d");
+        assertThat(subject.remove(1)).isEqualTo("b");
+        assertThat(subject.set(0, "e")).isEqualTo("a");
+        assertThat(subject).containsExactly("e", "c", "d");
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_outOfBounds_throws() {
+        new TreeItemList<>(Arrays.asList(1, 2)).get(2);
+    }
+
+    @Test
+    public void snapshot_listChanged_keepsItems() {
+        TreeItemList<String> subject = new TreeItemList<>(Arrays.asList("a", "b", "c", "d"));
+
+        TreeItemList<String> snapshot = subject.snapshot();
+        subject.add(0, subject.remove(3));
+        subject.set(1, "e");
+        subject.remove(2);
+
+        assertThat(subject).containsExactly("d", "e", "c");
+        assertThat(snapshot).containsExactly("a", "b", "c", "d");
+    }
+
+    @Test
+    public void snapshot_snapshotChanged_keepsListItems() {
+        TreeItemList<String> subject = new TreeItemList<>(Arrays.asList("a", "b", "c"));
+
+        TreeItemList<String> snapshot = subject.snapshot();
+        snapshot.add(1, "d");
+        snapshot.set(0, "e");
+
+        assertThat(snapshot).containsExactly("e", "d", "b", "c");
+        assertThat(subject).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    public void iterator_removeWhileIterating_keepsOrder() {
+        TreeItemList<Integer> subject = new TreeItemList<>();
+        for (int i = 0; i < 100; i++) {
+            subject.add(i);
+        }
+
+        Iterator<Integer> iterator = subject.iterator();
+        int expected = 0;
+        while (iterator.hasNext()) {
+            int item = iterator.next();
+            assertThat(item).isEqualTo(expected++);
+            if (item % 3 == 0) {
+                iterator.remove();
+            }
+        }
+
+        assertThat(subject).hasSize(66);
+        assertThat(subject.get(0)).isEqualTo(1);
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void iterator_listChanged_throws() {
+        TreeItemList<String> subject = new TreeItemList<>(Arrays.asList("a", "b"));
+
+        Iterator<String> iterator = subject.iterator();
+        iterator.next();
+        subject.add(0, "c");
+        iterator.next();
+    }
+
+    @Test
+    public void keyAt_otherItemsAddedRemovedAndMoved_followsItem() {
+        TreeItemList<String> subject = new TreeItemList<>(Arrays.asList("a", "b", "c", "d"));
+        int key = subject.keyAt(2);
+
+        subject.add(0, "e");
+        subject.remove(1);
+        subject.move(2, 0);
+        TreeItemList<String> snapshot = subject.snapshot();
+        subject.add(4, "f");
+
+        assertThat(subject).containsExactly("c", "e", "b", "d", "f");
+        assertThat(subject.indexOfKey(key)).isEqualTo(0);
+        assertThat(snapshot).containsExactly("c", "e", "b", "d");
+    }
+
+    @Test
+    public void keyAt_itemRemoved_releasesKey() {
+        TreeItemList<String> subject = new TreeItemList<>(Arrays.asList("a", "b"));
+        int key = subject.keyAt(1);
+
+        subject.remove(1);
+
+        assertThat(subject.indexOfKey(key)).isEqualTo(-1);
+    }
+
+    @Test
+    public void keyAt_onSnapshot_invalidatesKeysOfList() {
+        TreeItemList<String> subject = new TreeItemList<>(Arrays.asList("a", "b"));
+        int key = subject.keyAt(1);
+        TreeItemList<String> snapshot = subject.snapshot();
+
+        int snapshotKey = snapshot.keyAt(1);
+        snapshot.add(0, "c");
+
+        assertThat(snapshot.indexOfKey(snapshotKey)).isEqualTo(2);
+        assertThat(subject.indexOfKey(key)).isEqualTo(-1);
+    }
+
+    @Test
+    public void randomMoves_matchArrayList() {
+        Random random = new Random(42);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            expected.add(i);
+        }
+        TreeItemList<Integer> subject = new TreeItemList<>(expected);
+
+        for (int i = 0; i < 5000; i++) {
+            int fromPos = random.nextInt(expected.size());
+            int toPos = random.nextInt(expected.size());
+            expected.add(toPos, expected.remove(fromPos));
+            subject.add(toPos, subject.remove(fromPos));
+        }
+
+        assertThat(subject).isEqualTo(expected);
+    }
+}
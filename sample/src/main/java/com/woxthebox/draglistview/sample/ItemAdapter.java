@@ -25,10 +25,11 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.woxthebox.draglistview.DragItemAdapter;
+import com.woxthebox.draglistview.LongIdDragItemAdapter;
 
 import java.util.ArrayList;
 
-class ItemAdapter extends DragItemAdapter<Pair<Long, String>, ItemAdapter.ViewHolder> {
+class ItemAdapter extends LongIdDragItemAdapter<Pair<Long, String>, ItemAdapter.ViewHolder> {
 
     private int mLayoutId;
     private int mGrabHandleId;
@@ -57,8 +58,8 @@ class ItemAdapter extends DragItemAdapter<Pair<Long, String>, ItemAdapter.ViewHo
     }
 
     @Override
-    public long getUniqueItemId(int position) {
-        return mItemList.get(position).first;
+    public long getUniqueIdForItem(Pair<Long, String> item) {
+        return item.first;
     }
 
     class ViewHolder extends DragItemAdapter.ViewHolder {